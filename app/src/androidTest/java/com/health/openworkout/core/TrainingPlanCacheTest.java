@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.health.openworkout.core.datatypes.TrainingPlan;
+import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutSession;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The loaded plans are shared snapshots of the cache, so neither an unsaved edit nor a progress refresh
+ * may change an instance another caller already holds.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TrainingPlanCacheTest {
+    private static final String TEST_DB = "cache-test.db";
+
+    private Context context;
+    private OpenWorkout openWorkout;
+    private long trainingPlanId;
+
+    @Before
+    public void createDatabase() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+
+        openWorkout = new OpenWorkout(context, TEST_DB, false, null);
+        openWorkout.initTrainingPlans();
+        trainingPlanId = openWorkout.getCurrentUser().getTrainingsPlanId();
+    }
+
+    @After
+    public void closeDatabase() {
+        openWorkout.closeDB();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void unsavedTrainingPlanEdit() {
+        TrainingPlan trainingPlan = openWorkout.getTrainingPlan(trainingPlanId, OpenWorkout.PREFETCH.NONE);
+        String imagePath = trainingPlan.getImagePath();
+
+        TrainingPlan editedTrainingPlan = trainingPlan.copy();
+        editedTrainingPlan.setImagePath("content://unsaved.png");
+        editedTrainingPlan.setImagePathExternal(true);
+
+        TrainingPlan reloadedTrainingPlan = openWorkout.getTrainingPlan(trainingPlanId, OpenWorkout.PREFETCH.NONE);
+
+        assertEquals(imagePath, reloadedTrainingPlan.getImagePath());
+        assertFalse(reloadedTrainingPlan.isImagePathExternal());
+    }
+
+    @Test
+    public void unsavedWorkoutProgress() {
+        long workoutSessionId = getFirstWorkoutSession().getWorkoutSessionId();
+
+        WorkoutSession runningWorkoutSession = openWorkout.getWorkoutSession(workoutSessionId, OpenWorkout.PREFETCH.WORKOUT_ITEMS).copy();
+        WorkoutItem runningWorkoutItem = runningWorkoutSession.getWorkoutItems().get(0);
+        runningWorkoutItem.setElapsedTime(42);
+        runningWorkoutItem.setFinished(true);
+        runningWorkoutSession.setFinished(true);
+
+        WorkoutSession reloadedWorkoutSession = openWorkout.getWorkoutSession(workoutSessionId, OpenWorkout.PREFETCH.WORKOUT_ITEMS);
+        WorkoutItem reloadedWorkoutItem = reloadedWorkoutSession.getWorkoutItems().get(0);
+
+        assertFalse(reloadedWorkoutSession.isFinished());
+        assertFalse(reloadedWorkoutItem.isFinished());
+        assertEquals(0, reloadedWorkoutItem.getElapsedTime());
+        assertFalse(getFirstWorkoutSession().getWorkoutItems().get(0).isFinished());
+    }
+
+    @Test
+    public void progressRefreshKeepsSnapshot() {
+        WorkoutSession workoutSession = getFirstWorkoutSession();
+        WorkoutItem workoutItem = workoutSession.getWorkoutItems().get(0);
+        WorkoutItem untouchedWorkoutItem = workoutSession.getWorkoutItems().get(1);
+
+        WorkoutItem finishedWorkoutItem = workoutItem.clone();
+        finishedWorkoutItem.setElapsedTime(42);
+        openWorkout.finishWorkoutItem(finishedWorkoutItem);
+
+        WorkoutSession refreshedWorkoutSession = getFirstWorkoutSession();
+
+        // the held snapshot stays as it was, the refreshed one shares the unchanged items
+        assertFalse(workoutItem.isFinished());
+        assertEquals(0, workoutItem.getElapsedTime());
+        assertNotSame(workoutSession, refreshedWorkoutSession);
+        assertTrue(refreshedWorkoutSession.getWorkoutItems().get(0).isFinished());
+        assertEquals(42, refreshedWorkoutSession.getWorkoutItems().get(0).getElapsedTime());
+        assertSame(untouchedWorkoutItem, refreshedWorkoutSession.getWorkoutItems().get(1));
+        assertSame(refreshedWorkoutSession, openWorkout.getWorkoutSession(workoutSession.getWorkoutSessionId(), OpenWorkout.PREFETCH.WORKOUT_ITEMS));
+    }
+
+    private WorkoutSession getFirstWorkoutSession() {
+        return openWorkout.getTrainingPlan(trainingPlanId, OpenWorkout.PREFETCH.WORKOUT_ITEMS).getWorkoutSessions().get(0);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core;
+
+import android.content.Context;
+
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.health.openworkout.core.datatypes.TrainingPlan;
+import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutSession;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Loads the default training plans with all of their workout items and checks that each table is queried once,
+ * no matter how many sessions and items the plans have.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TrainingPlanLoadingTest {
+    private static final String TEST_DB = "loading-test.db";
+    private static final String[] GRAPH_TABLES = {"TrainingPlan", "WorkoutSession", "WorkoutItem", "Exercise", "Progress"};
+    private static final Pattern SELECT_TABLE = Pattern.compile("^SELECT .*? FROM (\\w+)");
+
+    private Context context;
+    private OpenWorkout openWorkout;
+    private final Map<String, Integer> selectCount = new HashMap<>();
+
+    @Before
+    public void createDatabase() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+
+        openWorkout = new OpenWorkout(context, TEST_DB, false, new RoomDatabase.QueryCallback() {
+            @Override
+            public void onQuery(String sqlQuery, List<? extends Object> bindArgs) {
+                countSelect(sqlQuery);
+            }
+        });
+        openWorkout.initTrainingPlans();
+        resetSelectCount();
+    }
+
+    @After
+    public void closeDatabase() {
+        openWorkout.closeDB();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void loadTrainingPlan() {
+        TrainingPlan trainingPlan = openWorkout.getTrainingPlan(openWorkout.getCurrentUser().getTrainingsPlanId(), OpenWorkout.PREFETCH.WORKOUT_ITEMS);
+
+        walkGraph(trainingPlan);
+        assertOneSelectPerTable();
+    }
+
+    @Test
+    public void loadTrainingPlans() {
+        List<TrainingPlan> trainingPlanList = openWorkout.getTrainingPlans(OpenWorkout.PREFETCH.WORKOUT_ITEMS);
+
+        assertFalse(trainingPlanList.isEmpty());
+
+        for (TrainingPlan trainingPlan : trainingPlanList) {
+            walkGraph(trainingPlan);
+        }
+        assertOneSelectPerTable();
+    }
+
+    // touches every child list, an unfetched one throws
+    private void walkGraph(TrainingPlan trainingPlan) {
+        assertFalse(trainingPlan.getWorkoutSessions().isEmpty());
+
+        for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
+            for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
+                workoutItem.getName();
+            }
+        }
+    }
+
+    private synchronized void countSelect(String sqlQuery) {
+        Matcher matcher = SELECT_TABLE.matcher(sqlQuery);
+
+        if (matcher.find()) {
+            String table = matcher.group(1);
+            Integer count = selectCount.get(table);
+            selectCount.put(table, (count == null) ? 1 : count + 1);
+        }
+    }
+
+    private synchronized void resetSelectCount() {
+        selectCount.clear();
+    }
+
+    private synchronized void assertOneSelectPerTable() {
+        for (String table : GRAPH_TABLES) {
+            assertEquals("selects from " + table, Integer.valueOf(1), selectCount.get(table));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.database;
+
+import android.database.Cursor;
+
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Migrates a populated version 1 database step by step and validates each step against the exported schema in app/schemas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+
+    private static final int TRAINING_PLAN_COUNT = 5;
+    private static final int WORKOUT_SESSION_COUNT = 20;
+    private static final int WORKOUT_ITEM_COUNT = 10;
+    private static final int EXERCISE_COUNT = 8;
+    private static final long MISSING_TRAINING_PLAN_ID = 999;
+
+    private static final Migration[] MIGRATIONS = {AppDatabase.MIGRATION_1_2, AppDatabase.MIGRATION_2_3, AppDatabase.MIGRATION_3_4,
+            AppDatabase.MIGRATION_4_5, AppDatabase.MIGRATION_5_6, AppDatabase.MIGRATION_6_7};
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    @Test
+    public void migrateAll() throws IOException {
+        SupportSQLiteDatabase database = helper.createDatabase(TEST_DB, 1);
+        populate(database);
+        database.close();
+
+        int workoutSessionCount = TRAINING_PLAN_COUNT * WORKOUT_SESSION_COUNT;
+        // the items of all sessions, including the one of the missing plan, and the workout database
+        int workoutItemCount = (workoutSessionCount + 1) * WORKOUT_ITEM_COUNT + EXERCISE_COUNT;
+        // every other plan, session and item is finished, the items of the dropped session lose their progress
+        int progressCount = (TRAINING_PLAN_COUNT + 1) / 2 + workoutSessionCount / 2 + workoutSessionCount * WORKOUT_ITEM_COUNT / 2;
+
+        for (Migration migration : MIGRATIONS) {
+            int version = migration.endVersion;
+            database = helper.runMigrationsAndValidate(TEST_DB, version, true, migration);
+
+            assertCount(database, "SELECT COUNT(*) FROM User", 1);
+            assertCount(database, "SELECT COUNT(*) FROM TrainingPlan", TRAINING_PLAN_COUNT);
+            assertCount(database, "SELECT COUNT(*) FROM WorkoutItem", workoutItemCount);
+
+            if (version < 3) {
+                assertCount(database, "SELECT COUNT(*) FROM WorkoutSession", workoutSessionCount + 1);
+            } else {
+                // the foreign keys drop the session of the missing plan, its items end up in the workout database
+                assertCount(database, "SELECT COUNT(*) FROM WorkoutSession", workoutSessionCount);
+                assertCount(database, "SELECT COUNT(*) FROM WorkoutItem WHERE workoutSessionId IS NULL", WORKOUT_ITEM_COUNT + EXERCISE_COUNT);
+            }
+
+            if (version >= 4) {
+                assertCount(database, "SELECT COUNT(*) FROM Exercise", EXERCISE_COUNT);
+            }
+
+            if (version >= 6) {
+                assertCount(database, "SELECT COUNT(*) FROM Progress", progressCount);
+            }
+
+            database.close();
+        }
+    }
+
+    private void populate(SupportSQLiteDatabase database) {
+        long workoutSessionId = 0;
+        long workoutItemId = 0;
+
+        database.execSQL("INSERT INTO User (userId, trainingsPlanId, isMale) VALUES (1, 1, 1)");
+
+        for (int trainingPlanId=1; trainingPlanId<=TRAINING_PLAN_COUNT; trainingPlanId++) {
+            database.execSQL("INSERT INTO TrainingPlan (trainingPlanId, orderNr, name, imagePath, isImagePathExternal, countFinishedTraining) VALUES (?, ?, ?, 'plan.png', 0, ?)",
+                    new Object[]{trainingPlanId, trainingPlanId, "Plan " + trainingPlanId, trainingPlanId % 2});
+
+            for (int nr=1; nr<=WORKOUT_SESSION_COUNT; nr++) {
+                workoutSessionId++;
+                insertWorkoutSession(database, trainingPlanId, workoutSessionId, nr, nr % 2);
+                workoutItemId = insertWorkoutItems(database, workoutSessionId, workoutItemId);
+            }
+        }
+
+        // a session left behind by a deleted plan
+        workoutSessionId++;
+        insertWorkoutSession(database, MISSING_TRAINING_PLAN_ID, workoutSessionId, 1, 1);
+        workoutItemId = insertWorkoutItems(database, workoutSessionId, workoutItemId);
+
+        // the workout database used -1 as session id
+        for (int nr=0; nr<EXERCISE_COUNT; nr++) {
+            workoutItemId++;
+            insertWorkoutItem(database, -1, workoutItemId, nr, 0);
+        }
+    }
+
+    private void insertWorkoutSession(SupportSQLiteDatabase database, long trainingPlanId, long workoutSessionId, int nr, int finished) {
+        database.execSQL("INSERT INTO WorkoutSession (workoutSessionId, trainingPlanId, orderNr, name, finished) VALUES (?, ?, ?, ?, ?)",
+                new Object[]{workoutSessionId, trainingPlanId, nr, "Day " + nr, finished});
+    }
+
+    private long insertWorkoutItems(SupportSQLiteDatabase database, long workoutSessionId, long workoutItemId) {
+        for (int nr=1; nr<=WORKOUT_ITEM_COUNT; nr++) {
+            workoutItemId++;
+            insertWorkoutItem(database, workoutSessionId, workoutItemId, nr, nr % 2);
+        }
+
+        return workoutItemId;
+    }
+
+    // the exercise content only depends on the order number, so the exercises are shared between the sessions
+    private void insertWorkoutItem(SupportSQLiteDatabase database, long workoutSessionId, long workoutItemId, int nr, int finished) {
+        database.execSQL("INSERT INTO WorkoutItem (workoutItemId, workoutSessionId, orderNr, name, description, elapsedTime, imagePath, isImagePathExternal, " +
+                        "videoPath, isVideoPathExternal, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode, finished) " +
+                        "VALUES (?, ?, ?, ?, 'description', ?, 'image.png', 0, 'video.mp4', 0, 5, 30, 20, 10, 1, ?)",
+                new Object[]{workoutItemId, workoutSessionId, nr, "Exercise " + (nr % EXERCISE_COUNT), nr, finished});
+    }
+
+    private void assertCount(SupportSQLiteDatabase database, String query, int expectedCount) {
+        Cursor cursor = database.query(query);
+
+        try {
+            cursor.moveToFirst();
+            assertEquals(query, expectedCount, cursor.getInt(0));
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.database;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the DAO queries of the list and workout screens, then checks their EXPLAIN QUERY PLAN for full table scans and sorts.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+    private AppDatabase appDB;
+    private final List<String> queryList = new ArrayList<>();
+    private final List<Object[]> bindArgsList = new ArrayList<>();
+
+    @Before
+    public void createDatabase() {
+        appDB = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+                .setQueryCallback(new RoomDatabase.QueryCallback() {
+                    @Override
+                    public void onQuery(String sqlQuery, List<? extends Object> bindArgs) {
+                        if (sqlQuery.startsWith("SELECT") || sqlQuery.startsWith("DELETE") || sqlQuery.startsWith("UPDATE")) {
+                            queryList.add(sqlQuery);
+                            bindArgsList.add(bindArgs.toArray());
+                        }
+                    }
+                }, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        command.run();
+                    }
+                })
+                .build();
+
+        // only the DAO queries of the test are checked, not the ones Room runs while opening
+        appDB.getOpenHelper().getWritableDatabase();
+        queryList.clear();
+        bindArgsList.clear();
+    }
+
+    @After
+    public void closeDatabase() {
+        appDB.close();
+    }
+
+    @Test
+    public void workoutSessionQueries() {
+        appDB.workoutSessionDAO().getAll(1);
+        appDB.workoutSessionDAO().getIds(1);
+        appDB.workoutSessionDAO().getSummaryPage(1, 1, 0, 0, 20);
+        appDB.workoutSessionDAO().count(1);
+        appDB.workoutSessionDAO().getMaxOrderNr(1);
+        appDB.workoutSessionDAO().deleteAll(1);
+
+        assertQueryPlans(false);
+    }
+
+    @Test
+    public void workoutItemQueries() {
+        appDB.workoutItemDAO().getAll(1);
+        appDB.workoutItemDAO().getSummaryPage(1, 1, 0, 0, 20);
+        appDB.workoutItemDAO().deleteAll(1);
+
+        assertQueryPlans(false);
+    }
+
+    // a plan is ordered across its sessions and the workout database by exercise name, both need a sort
+    @Test
+    public void sortedWorkoutItemQueries() {
+        appDB.workoutItemDAO().getAllOfTrainingPlan(1);
+        appDB.workoutItemDAO().getAllUnique();
+
+        assertQueryPlans(true);
+    }
+
+    @Test
+    public void exerciseQueries() {
+        appDB.exerciseDAO().getAllOfWorkoutSession(1);
+        appDB.exerciseDAO().getAllOfTrainingPlan(1);
+
+        assertQueryPlans(false);
+    }
+
+    @Test
+    public void progressQueries() {
+        appDB.progressDAO().getAllOfTrainingPlan(1, 1);
+        appDB.progressDAO().getAllOfWorkoutSession(1, 1);
+        appDB.progressDAO().deleteFinishedOfTrainingPlan(1, 1);
+        appDB.progressDAO().deleteFinishedOfWorkoutSession(1, 1);
+
+        assertQueryPlans(false);
+    }
+
+    private void assertQueryPlans(boolean sortAllowed) {
+        assertFalse(queryList.isEmpty());
+
+        for (int i=0; i<queryList.size(); i++) {
+            String query = queryList.get(i);
+            Cursor cursor = appDB.query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + query, bindArgsList.get(i)));
+
+            try {
+                while (cursor.moveToNext()) {
+                    String detail = cursor.getString(cursor.getColumnIndex("detail"));
+
+                    assertFalse(detail + " in " + query, detail.startsWith("SCAN") && !detail.contains("INDEX"));
+                    assertTrue(detail + " in " + query, sortAllowed || !detail.contains("TEMP B-TREE"));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.health.openworkout;
 
 import android.app.AlertDialog;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Bundle;
 import android.text.SpannableString;
@@ -35,19 +36,19 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
+import androidx.preference.PreferenceManager;
 
 import com.google.android.material.navigation.NavigationView;
 import com.health.openworkout.core.OpenWorkout;
 
 public class MainActivity extends AppCompatActivity {
+    private static final String PREF_COMPLETION_ROLLOVER_DONE = "completionRolloverDone";
 
     private AppBarConfiguration mAppBarConfiguration;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        OpenWorkout.getInstance().initTrainingPlans();
-
         setContentView(R.layout.activity_main);
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
@@ -84,6 +85,33 @@ public class MainActivity extends AppCompatActivity {
                 return true;
             }
         });
+
+        // the screens read the current user, so the navigation graph is only set once the database is initialized,
+        // a restored back stack is applied with it
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().initTrainingPlans();
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                if (!isDestroyed()) {
+                    navController.setGraph(R.navigation.mobile_navigation);
+                }
+            }
+        });
+
+        // plans finished before the rollover existed are only swept once, afterwards finishing a session rolls its plan over
+        final SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(this);
+        if (!sharedPreferences.getBoolean(PREF_COMPLETION_ROLLOVER_DONE, false)) {
+            OpenWorkout.getInstance().getCompletionRollover().rollOverFinishedTrainingPlans(new Runnable() {
+                @Override
+                public void run() {
+                    sharedPreferences.edit().putBoolean(PREF_COMPLETION_ROLLOVER_DONE, true).apply();
+                }
+            });
+        }
     }
 
     @Override
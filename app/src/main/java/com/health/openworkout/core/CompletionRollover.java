@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core;
+
+import com.health.openworkout.core.datatypes.WorkoutSession;
+
+import timber.log.Timber;
+
+/**
+ * Marks finished workout sessions and rolls a training plan over once all of its sessions are done,
+ * i.e. increments its finished training counter and resets the progress of its sessions and workout items.
+ * All writes run transactionally on the database executor.
+ */
+public class CompletionRollover {
+    private final OpenWorkout openWorkout;
+
+    public CompletionRollover(OpenWorkout openWorkout) {
+        this.openWorkout = openWorkout;
+    }
+
+    public void finishWorkoutSession(final WorkoutSession workoutSession) {
+        workoutSession.setFinished(true);
+
+        openWorkout.executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                if (openWorkout.finishWorkoutSession(workoutSession)) {
+                    Timber.d("Training plan " + workoutSession.getTrainingPlanId() + " finished, rolled over");
+                }
+            }
+        });
+    }
+
+    // training plans which were completely finished before the rollover was triggered on the session finish,
+    // onFinished runs on the main thread once the sweep is done
+    public void rollOverFinishedTrainingPlans(Runnable onFinished) {
+        openWorkout.executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                for (long trainingPlanId : openWorkout.getFinishedTrainingPlanIds()) {
+                    openWorkout.rollOverTrainingPlan(trainingPlanId);
+                    Timber.d("Training plan " + trainingPlanId + " finished, rolled over");
+                }
+            }
+        }, onFinished);
+    }
+}
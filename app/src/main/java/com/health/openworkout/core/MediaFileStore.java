@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import timber.log.Timber;
+
+/**
+ * Content addressed store for imported media files, each file is named after the SHA-256 of its content,
+ * so the same media of several training packages is stored only once.
+ * A file is removed once no training plan or exercise references its path anymore (see {@link #deleteUnused(Set)}).
+ */
+public class MediaFileStore {
+    public static final String DIRECTORY = "media";
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}(\\.[A-Za-z0-9]+)?");
+
+    private final File storeDir;
+    private final String storePathPrefix;
+
+    public MediaFileStore(Context context) {
+        storeDir = new File(context.getFilesDir(), DIRECTORY);
+        storePathPrefix = Uri.fromFile(storeDir).toString() + "/";
+    }
+
+    public boolean contains(String path) {
+        return path != null && path.startsWith(storePathPrefix);
+    }
+
+    // true if the name is a store file name, i.e. a SHA-256 hex digest with an optional extension
+    public static boolean isFileName(String fileName) {
+        return FILE_NAME.matcher(fileName).matches();
+    }
+
+    // path of an already stored file or null
+    public String get(String fileName) {
+        File file = new File(storeDir, fileName);
+
+        return isFileName(fileName) && file.exists() ? toPath(file) : null;
+    }
+
+    /**
+     * Copies the stream into the store while hashing it and returns the path of the stored file.
+     * If the content is already stored the copy is dropped.
+     */
+    public String put(InputStream in, String extension) throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+
+        storeDir.mkdirs();
+        File tmpFile = File.createTempFile("import", ".tmp", storeDir);
+
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile));
+
+            try {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+
+            String fileName = toHex(digest.digest()) + (extension.isEmpty() ? "" : "." + extension);
+            File file = new File(storeDir, fileName);
+
+            // a concurrent put of the same content may win the rename, its file has the same content,
+            // so a failed rename is only an error if there is no file afterwards
+            if (file.exists()) {
+                Timber.d("Media file " + fileName + " already stored");
+            } else if (!tmpFile.renameTo(file) && !file.exists()) {
+                throw new IOException("Can't store media file " + fileName);
+            }
+
+            return toPath(file);
+        } finally {
+            tmpFile.delete();
+        }
+    }
+
+    // removes the stored files whose path is not in the referenced paths, returns the number of removed files,
+    // other files like the import*.tmp files of a running import are left alone
+    public int deleteUnused(Set<String> referencedPaths) {
+        File[] files = storeDir.listFiles();
+        int deleted = 0;
+
+        if (files == null) {
+            return 0;
+        }
+
+        for (File file : files) {
+            if (isFileName(file.getName()) && !referencedPaths.contains(toPath(file)) && file.delete()) {
+                deleted++;
+            }
+        }
+
+        return deleted;
+    }
+
+    private String toPath(File file) {
+        return storePathPrefix + file.getName();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+            hex.append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return hex.toString();
+    }
+}
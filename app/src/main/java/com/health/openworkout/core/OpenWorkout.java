@@ -18,44 +18,105 @@
 package com.health.openworkout.core;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LongSparseArray;
 
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.health.openworkout.core.database.AppDatabase;
+import com.health.openworkout.core.datatypes.Exercise;
+import com.health.openworkout.core.datatypes.Progress;
 import com.health.openworkout.core.datatypes.TrainingPlan;
+import com.health.openworkout.core.datatypes.TrainingPlanSummary;
 import com.health.openworkout.core.datatypes.User;
 import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutItemSummary;
+import com.health.openworkout.core.datatypes.WorkoutLog;
+import com.health.openworkout.core.datatypes.WorkoutLogDay;
+import com.health.openworkout.core.datatypes.WorkoutLogWeek;
 import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.datatypes.WorkoutSessionSummary;
 import com.health.openworkout.core.training.AbdominalMuscleTraining;
 import com.health.openworkout.core.training.BeginnersTraining;
 import com.health.openworkout.core.training.SevenMinutesTraining;
+import com.health.openworkout.core.utils.OrderUtils;
 import com.health.openworkout.core.workout.WorkoutFactory;
 import com.health.openworkout.gui.utils.SoundUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import timber.log.Timber;
 
 public class OpenWorkout {
     public static boolean DEBUG_MODE = false;
+    // how far down the plan tree a load reaches, the child lists below it are left unloaded and throw on access
+    public enum PREFETCH {NONE, WORKOUT_SESSIONS, WORKOUT_ITEMS}
+
     private static final String DATABASE_NAME = "openWorkout.db";
+    private static final String PREPACKAGED_DATABASE_DIR = "database";
 
     private static OpenWorkout instance;
     private final Context context;
 
     private AppDatabase appDB;
-    private User user;
+    private volatile User user;
+
+    // all database access is serialized on this executor, so queued reads always see the writes queued before them
+    private final ExecutorService databaseExecutor;
+    // long file work without database access, like writing an export, so it doesn't hold up the queued database access
+    private final ExecutorService fileExecutor;
+    private final Handler mainHandler;
+
+    // identity map of the loaded plan graphs, dropped on our own writes and by the invalidation tracker for any other change,
+    // the cached objects are handed out as shared snapshots, so they are never changed once cached (editors work on a copy())
+    private final LongSparseArray<TrainingPlan> trainingPlanCache = new LongSparseArray<>();
+    private final LongSparseArray<WorkoutSession> workoutSessionCache = new LongSparseArray<>();
+    // the order of all training plans, their instances are in trainingPlanCache
+    private List<Long> trainingPlanIdListCache;
+    private long cacheGeneration;
+    // the progress lives in its own table, so progress changes only refresh the progress fields of the cached plans
+    private boolean progressStale;
 
     private SoundUtils soundUtils;
+    private final CompletionRollover completionRollover;
+    private final MediaFileStore mediaFileStore;
 
     private OpenWorkout(Context aContext) {
+        this(aContext, DATABASE_NAME, true, null);
+    }
+
+    // used by the prepackaged database generator and the tests to open a database from scratch next to the app's one
+    OpenWorkout(Context aContext, String databaseName, boolean fromPrepackagedDatabase, RoomDatabase.QueryCallback queryCallback) {
         context = aContext;
         soundUtils = new SoundUtils(aContext);
+        completionRollover = new CompletionRollover(this);
+        mediaFileStore = new MediaFileStore(aContext);
+        databaseExecutor = Executors.newSingleThreadExecutor();
+        fileExecutor = Executors.newSingleThreadExecutor();
+        mainHandler = new Handler(Looper.getMainLooper());
 
-        openDB();
+        openDB(databaseName, fromPrepackagedDatabase, queryCallback);
     }
 
     public static void createInstance(Context aContext) {
@@ -78,9 +139,12 @@ public class OpenWorkout {
         return context;
     }
 
-    private void openDB() {
-        appDB = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME)
-                .allowMainThreadQueries()
+    public MediaFileStore getMediaFileStore() {
+        return mediaFileStore;
+    }
+
+    private void openDB(String databaseName, boolean fromPrepackagedDatabase, RoomDatabase.QueryCallback queryCallback) {
+        RoomDatabase.Builder<AppDatabase> databaseBuilder = Room.databaseBuilder(context, AppDatabase.class, databaseName)
                 .addCallback(new RoomDatabase.Callback() {
                     @Override
                     public void onOpen(SupportSQLiteDatabase db) {
@@ -88,159 +152,1239 @@ public class OpenWorkout {
                         db.setForeignKeyConstraintsEnabled(true);
                     }
                 })
-                .addMigrations(AppDatabase.MIGRATION_1_2)
-                .build();
+                .addMigrations(AppDatabase.MIGRATION_1_2, AppDatabase.MIGRATION_2_3, AppDatabase.MIGRATION_3_4, AppDatabase.MIGRATION_4_5, AppDatabase.MIGRATION_5_6, AppDatabase.MIGRATION_6_7);
+
+        // on first launch copy the prebuilt default training plans instead of inserting them one by one
+        if (fromPrepackagedDatabase && !context.getDatabasePath(databaseName).exists()) {
+            String prepackagedDatabase = getPrepackagedDatabaseAsset();
+
+            if (prepackagedDatabase != null) {
+                Timber.d("Create database from " + prepackagedDatabase);
+                databaseBuilder.createFromAsset(prepackagedDatabase);
+            }
+        }
+
+        if (queryCallback != null) {
+            databaseBuilder.setQueryCallback(queryCallback, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            });
+        }
+
+        appDB = databaseBuilder.build();
+
+        appDB.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("TrainingPlan", "WorkoutSession", "WorkoutItem", "Exercise") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidateCache();
+            }
+        });
+
+        appDB.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("Progress") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                markProgressStale();
+            }
+        });
+    }
+
+    void closeDB() {
+        appDB.close();
+    }
+
+    /**
+     * Runs the query on the database executor and publishes its result to the returned LiveData.
+     */
+    public <T> LiveData<T> loadAsync(final Callable<T> query) {
+        final MutableLiveData<T> result = new MutableLiveData<>();
+
+        databaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.postValue(query.call());
+                } catch (Exception ex) {
+                    throw new RuntimeException("failed to load from database", ex);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    public void executeAsync(Runnable task) {
+        executeAsync(task, null);
+    }
+
+    /**
+     * Runs the task on the database executor and afterwards the optional onFinished callback on the main thread.
+     */
+    public void executeAsync(final Runnable task, final Runnable onFinished) {
+        databaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                task.run();
+
+                if (onFinished != null) {
+                    mainHandler.post(onFinished);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the task on the file executor, the task must not access the database.
+     */
+    public void executeFileAsync(Runnable task) {
+        fileExecutor.execute(task);
+    }
+
+    public LiveData<List<TrainingPlan>> loadTrainingPlans(final PREFETCH prefetch) {
+        return loadAsync(new Callable<List<TrainingPlan>>() {
+            @Override
+            public List<TrainingPlan> call() {
+                return getTrainingPlans(prefetch);
+            }
+        });
+    }
+
+    public LiveData<List<TrainingPlanSummary>> loadTrainingPlanSummaries() {
+        return loadAsync(new Callable<List<TrainingPlanSummary>>() {
+            @Override
+            public List<TrainingPlanSummary> call() {
+                return getTrainingPlanSummaries();
+            }
+        });
+    }
+
+    public LiveData<TrainingPlan> loadTrainingPlan(final long trainingPlanId, final PREFETCH prefetch) {
+        return loadAsync(new Callable<TrainingPlan>() {
+            @Override
+            public TrainingPlan call() {
+                return getTrainingPlan(trainingPlanId, prefetch);
+            }
+        });
+    }
+
+    public LiveData<List<WorkoutSessionSummary>> loadWorkoutSessionPage(final long trainingPlanId, final WorkoutSessionSummary lastWorkoutSession, final int pageSize) {
+        return loadAsync(new Callable<List<WorkoutSessionSummary>>() {
+            @Override
+            public List<WorkoutSessionSummary> call() {
+                return getWorkoutSessionPage(trainingPlanId, lastWorkoutSession, pageSize);
+            }
+        });
+    }
+
+    public LiveData<List<WorkoutItemSummary>> loadWorkoutItemPage(final long workoutSessionId, final WorkoutItemSummary lastWorkoutItem, final int pageSize) {
+        return loadAsync(new Callable<List<WorkoutItemSummary>>() {
+            @Override
+            public List<WorkoutItemSummary> call() {
+                return getWorkoutItemPage(workoutSessionId, lastWorkoutItem, pageSize);
+            }
+        });
+    }
+
+    public LiveData<WorkoutSession> loadWorkoutSession(final long workoutSessionId, final PREFETCH prefetch) {
+        return loadAsync(new Callable<WorkoutSession>() {
+            @Override
+            public WorkoutSession call() {
+                return getWorkoutSession(workoutSessionId, prefetch);
+            }
+        });
     }
 
+    public LiveData<WorkoutItem> loadWorkoutItem(final long workoutItemId) {
+        return loadAsync(new Callable<WorkoutItem>() {
+            @Override
+            public WorkoutItem call() {
+                return getWorkoutItem(workoutItemId);
+            }
+        });
+    }
+
+    public LiveData<List<WorkoutItem>> loadAllUniqueWorkoutItems() {
+        return loadAsync(new Callable<List<WorkoutItem>>() {
+            @Override
+            public List<WorkoutItem> call() {
+                return getAllUniqueWorkoutItems();
+            }
+        });
+    }
+
+    // the synchronous methods below must not be called from the main thread, use the async variants above or executeAsync
+
     public void initTrainingPlans() {
         List<TrainingPlan> trainingPlanList = appDB.trainingPlanDAO().getAll();
 
         if (trainingPlanList.isEmpty()) {
-            appDB.workoutItemDAO().clear();
+            appDB.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    appDB.workoutItemDAO().clear();
+                    appDB.exerciseDAO().deleteUnused();
 
-            long trainingPlanId = insertTrainingPlan(new SevenMinutesTraining());
-            insertTrainingPlan(new BeginnersTraining());
-            insertTrainingPlan(new AbdominalMuscleTraining());
+                    List<TrainingPlan> defaultTrainingPlanList = Arrays.asList(new SevenMinutesTraining(), new BeginnersTraining(), new AbdominalMuscleTraining());
+                    OrderUtils.reorder(defaultTrainingPlanList);
 
-            WorkoutFactory workoutFactory = new WorkoutFactory();
-            appDB.workoutItemDAO().insertAll(workoutFactory.getAllWorkoutItems());
+                    long[] trainingPlanIds = insertTrainingPlans(defaultTrainingPlanList);
 
-            user = new User();
-            user.setTrainingsPlanId(trainingPlanId);
-            appDB.userDAO().insert(user);
+                    WorkoutFactory workoutFactory = new WorkoutFactory();
+                    List<WorkoutItem> workoutFactoryItemList = workoutFactory.getAllWorkoutItems();
+                    resolveExercises(workoutFactoryItemList);
+                    appDB.workoutItemDAO().insertAll(workoutFactoryItemList);
+
+                    user = new User();
+                    user.setTrainingsPlanId(trainingPlanIds[0]);
+                    appDB.userDAO().insert(user);
+                }
+            });
         }
 
         user = appDB.userDAO().getAll().get(0);
     }
 
+    // the default training plans contain localized names, so a prebuilt database is shipped per language
+    static String getPrepackagedDatabaseName() {
+        return "openWorkout-" + Locale.getDefault().getLanguage() + ".db";
+    }
+
+    private String getPrepackagedDatabaseAsset() {
+        String prepackagedDatabaseName = getPrepackagedDatabaseName();
+
+        try {
+            String[] assetList = context.getAssets().list(PREPACKAGED_DATABASE_DIR);
+
+            if (assetList != null && Arrays.asList(assetList).contains(prepackagedDatabaseName)) {
+                return PREPACKAGED_DATABASE_DIR + "/" + prepackagedDatabaseName;
+            }
+        } catch (IOException ex) {
+            Timber.e(ex);
+        }
+
+        return null;
+    }
+
     public User getCurrentUser() {
         return user;
     }
 
     public void printTrainingPlans() {
         Timber.d("################ TRAINING PLAN PRINTOUT #####################");
-        List<TrainingPlan> trainingPlanList = appDB.trainingPlanDAO().getAll();
+        List<TrainingPlan> trainingPlanList = getTrainingPlans(PREFETCH.WORKOUT_ITEMS);
 
         for (TrainingPlan singleTrainingPlan : trainingPlanList) {
             Timber.d("- Training Plan " + singleTrainingPlan.getName() + " Id " + singleTrainingPlan.getTrainingPlanId());
-            List<WorkoutSession> workoutSessionList = appDB.workoutSessionDAO().getAll(singleTrainingPlan.getTrainingPlanId());
 
-            for (WorkoutSession singleWorkoutSession : workoutSessionList) {
+            for (WorkoutSession singleWorkoutSession : singleTrainingPlan.getWorkoutSessions()) {
                 Timber.d("-- WorkoutSession " + singleWorkoutSession.getName() + " Id " + singleWorkoutSession.getWorkoutSessionId());
-                List<WorkoutItem> workoutItemList = appDB.workoutItemDAO().getAll(singleWorkoutSession.getWorkoutSessionId());
 
-                for (WorkoutItem singleWorkItem : workoutItemList) {
+                for (WorkoutItem singleWorkItem : singleWorkoutSession.getWorkoutItems()) {
                     Timber.d("---- WorkoutItem " + singleWorkItem.getName() + " Id " + singleWorkItem.getWorkoutItemId());
                 }
             }
         }
     }
 
-    public List<TrainingPlan> getTrainingPlans() {
-        List<TrainingPlan> trainingPlanList = new ArrayList<>();
+    public List<TrainingPlan> getTrainingPlans(final PREFETCH prefetch) {
+        List<TrainingPlan> cachedTrainingPlanList = null;
+
+        synchronized (this) {
+            refreshCachedProgress();
+
+            if (trainingPlanIdListCache != null) {
+                cachedTrainingPlanList = new ArrayList<>(trainingPlanIdListCache.size());
+
+                for (long trainingPlanId : trainingPlanIdListCache) {
+                    TrainingPlan cachedTrainingPlan = trainingPlanCache.get(trainingPlanId);
+
+                    // loaded with a lower prefetch level, so all plans are loaded again
+                    if (cachedTrainingPlan == null || !isFetched(cachedTrainingPlan, prefetch)) {
+                        cachedTrainingPlanList = null;
+                        break;
+                    }
+
+                    cachedTrainingPlanList.add(cachedTrainingPlan);
+                }
+            }
+        }
+
+        if (cachedTrainingPlanList != null) {
+            return cachedTrainingPlanList;
+        }
+
+        long generation = getCacheGeneration();
+
+        List<TrainingPlan> trainingPlanList = appDB.runInTransaction(new Callable<List<TrainingPlan>>() {
+            @Override
+            public List<TrainingPlan> call() {
+                List<TrainingPlan> trainingPlanList = appDB.trainingPlanDAO().getAll();
+                List<WorkoutSession> workoutSessionList = Collections.emptyList();
+                List<WorkoutItem> workoutItemList = Collections.emptyList();
+
+                if (prefetch != PREFETCH.NONE) {
+                    workoutSessionList = appDB.workoutSessionDAO().getAll();
+                }
+
+                if (prefetch == PREFETCH.WORKOUT_ITEMS) {
+                    workoutItemList = appDB.workoutItemDAO().getAllOfTrainingPlans();
+                    attachExercises(workoutItemList, appDB.exerciseDAO().getAll());
+                }
+
+                applyProgress(trainingPlanList, workoutSessionList, workoutItemList, appDB.progressDAO().getAll(getUserId()));
+
+                assembleTrainingPlans(trainingPlanList, workoutSessionList, workoutItemList, prefetch);
+                resolveDerivedTrainingPlans(trainingPlanList, prefetch);
 
-        List<TrainingPlan> dbTrainingPlanList = appDB.trainingPlanDAO().getAll();
-        for (TrainingPlan dbTrainingPlan : dbTrainingPlanList) {
-            trainingPlanList.add(getTrainingPlan(dbTrainingPlan.getTrainingPlanId()));
+                return trainingPlanList;
+            }
+        });
+
+        synchronized (this) {
+            for (int i=0; i<trainingPlanList.size(); i++) {
+                trainingPlanList.set(i, cacheTrainingPlan(trainingPlanList.get(i), generation));
+            }
+
+            if (generation == cacheGeneration) {
+                trainingPlanIdListCache = new ArrayList<>(trainingPlanList.size());
+
+                for (TrainingPlan trainingPlan : trainingPlanList) {
+                    trainingPlanIdListCache.add(trainingPlan.getTrainingPlanId());
+                }
+            }
         }
 
         return trainingPlanList;
     }
 
-    public TrainingPlan getTrainingPlan(long trainingPlanId) {
-        TrainingPlan singleTrainingPlan = appDB.trainingPlanDAO().get(trainingPlanId);
+    public TrainingPlan getTrainingPlan(final long trainingPlanId, final PREFETCH prefetch) {
+        TrainingPlan cachedTrainingPlan;
 
-        if (singleTrainingPlan != null) {
-            List<WorkoutSession> workoutSessionList = appDB.workoutSessionDAO().getAll(singleTrainingPlan.getTrainingPlanId());
-            singleTrainingPlan.setWorkoutSessions(workoutSessionList);
+        synchronized (this) {
+            refreshCachedProgress();
+            cachedTrainingPlan = trainingPlanCache.get(trainingPlanId);
+        }
+
+        if (cachedTrainingPlan != null && isFetched(cachedTrainingPlan, prefetch)) {
+            return cachedTrainingPlan;
+        }
 
-            for (WorkoutSession singleWorkoutSession : workoutSessionList) {
-                List<WorkoutItem> workoutItemList = appDB.workoutItemDAO().getAll(singleWorkoutSession.getWorkoutSessionId());
-                singleWorkoutSession.setWorkoutItems(workoutItemList);
+        long generation = getCacheGeneration();
+
+        TrainingPlan singleTrainingPlan = appDB.runInTransaction(new Callable<TrainingPlan>() {
+            @Override
+            public TrainingPlan call() {
+                TrainingPlan singleTrainingPlan = appDB.trainingPlanDAO().get(trainingPlanId);
+
+                if (singleTrainingPlan != null) {
+                    List<WorkoutSession> workoutSessionList = Collections.emptyList();
+                    List<WorkoutItem> workoutItemList = Collections.emptyList();
+
+                    if (prefetch != PREFETCH.NONE) {
+                        workoutSessionList = appDB.workoutSessionDAO().getAll(trainingPlanId);
+                    }
+
+                    if (prefetch == PREFETCH.WORKOUT_ITEMS) {
+                        workoutItemList = appDB.workoutItemDAO().getAllOfTrainingPlan(trainingPlanId);
+                        attachExercises(workoutItemList, appDB.exerciseDAO().getAllOfTrainingPlan(trainingPlanId));
+                    }
+
+                    applyProgress(Collections.singletonList(singleTrainingPlan), workoutSessionList, workoutItemList, appDB.progressDAO().getAllOfTrainingPlan(getUserId(), trainingPlanId));
+
+                    assembleTrainingPlans(Collections.singletonList(singleTrainingPlan), workoutSessionList, workoutItemList, prefetch);
+                    resolveDerivedTrainingPlans(Collections.singletonList(singleTrainingPlan), prefetch);
+                }
+
+                return singleTrainingPlan;
             }
+        });
+
+        if (singleTrainingPlan == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            singleTrainingPlan = cacheTrainingPlan(singleTrainingPlan, generation);
         }
 
         return singleTrainingPlan;
     }
 
-    public WorkoutSession getWorkoutSession(long workoutSessionId) {
-        WorkoutSession singleWorkoutSession = appDB.workoutSessionDAO().get(workoutSessionId);
+    // hook the flat, orderNr sorted rows into their parents so a whole plan tree costs one query per table,
+    // the child lists below the prefetch level are left unfetched
+    private void assembleTrainingPlans(List<TrainingPlan> trainingPlanList, List<WorkoutSession> workoutSessionList, List<WorkoutItem> workoutItemList, PREFETCH prefetch) {
+        LongSparseArray<TrainingPlan> trainingPlanMap = new LongSparseArray<>(trainingPlanList.size());
+        LongSparseArray<WorkoutSession> workoutSessionMap = new LongSparseArray<>(workoutSessionList.size());
+
+        for (TrainingPlan trainingPlan : trainingPlanList) {
+            trainingPlan.setWorkoutSessions(prefetch != PREFETCH.NONE ? new ArrayList<WorkoutSession>() : null);
+            trainingPlanMap.put(trainingPlan.getTrainingPlanId(), trainingPlan);
+        }
+
+        for (WorkoutSession workoutSession : workoutSessionList) {
+            TrainingPlan trainingPlan = trainingPlanMap.get(workoutSession.getTrainingPlanId());
+
+            if (trainingPlan != null) {
+                workoutSession.setWorkoutItems(prefetch == PREFETCH.WORKOUT_ITEMS ? new ArrayList<WorkoutItem>() : null);
+                trainingPlan.addWorkoutSession(workoutSession);
+                workoutSessionMap.put(workoutSession.getWorkoutSessionId(), workoutSession);
+            }
+        }
+
+        for (WorkoutItem workoutItem : workoutItemList) {
+            WorkoutSession workoutSession = workoutSessionMap.get(workoutItem.getWorkoutSessionId());
+
+            if (workoutSession != null) {
+                workoutSession.addWorkout(workoutItem);
+            }
+        }
+    }
+
+    public WorkoutSession getWorkoutSession(final long workoutSessionId, final PREFETCH prefetch) {
+        WorkoutSession cachedWorkoutSession;
+
+        synchronized (this) {
+            refreshCachedProgress();
+            cachedWorkoutSession = workoutSessionCache.get(workoutSessionId);
+        }
+
+        if (cachedWorkoutSession != null && (prefetch == PREFETCH.NONE || cachedWorkoutSession.isWorkoutItemsFetched())) {
+            return cachedWorkoutSession;
+        }
+
+        long generation = getCacheGeneration();
+
+        WorkoutSession singleWorkoutSession = appDB.runInTransaction(new Callable<WorkoutSession>() {
+            @Override
+            public WorkoutSession call() {
+                WorkoutSession singleWorkoutSession = appDB.workoutSessionDAO().get(workoutSessionId);
+                List<WorkoutItem> workoutItemList = Collections.emptyList();
+
+                if (prefetch != PREFETCH.NONE) {
+                    workoutItemList = appDB.workoutItemDAO().getAll(workoutSessionId);
+                    attachExercises(workoutItemList, appDB.exerciseDAO().getAllOfWorkoutSession(workoutSessionId));
+                }
+
+                applyProgress(Collections.<TrainingPlan>emptyList(), Collections.singletonList(singleWorkoutSession), workoutItemList,
+                        appDB.progressDAO().getAllOfWorkoutSession(getUserId(), workoutSessionId));
+                singleWorkoutSession.setWorkoutItems(prefetch != PREFETCH.NONE ? workoutItemList : null);
+
+                return singleWorkoutSession;
+            }
+        });
 
-        List<WorkoutItem> workoutItemList = appDB.workoutItemDAO().getAll(singleWorkoutSession.getWorkoutSessionId());
-        singleWorkoutSession.setWorkoutItems(workoutItemList);
+        synchronized (this) {
+            singleWorkoutSession = cacheWorkoutSession(singleWorkoutSession, generation);
+        }
 
         return singleWorkoutSession;
     }
 
+    // a cached instance is only handed out if it was loaded at least as deep as requested
+    private static boolean isFetched(TrainingPlan trainingPlan, PREFETCH prefetch) {
+        return getFetchedLevel(trainingPlan).compareTo(prefetch) >= 0;
+    }
+
+    private static PREFETCH getFetchedLevel(TrainingPlan trainingPlan) {
+        if (!trainingPlan.isWorkoutSessionsFetched()) {
+            return PREFETCH.NONE;
+        }
+
+        for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
+            if (!workoutSession.isWorkoutItemsFetched()) {
+                return PREFETCH.WORKOUT_SESSIONS;
+            }
+        }
+
+        return PREFETCH.WORKOUT_ITEMS;
+    }
+
+    private void resolveDerivedTrainingPlans(List<TrainingPlan> trainingPlanList, PREFETCH prefetch) {
+        if (prefetch == PREFETCH.NONE) {
+            return;
+        }
+
+        for (TrainingPlan trainingPlan : trainingPlanList) {
+            if (trainingPlan.getBasePlanId() != null) {
+                trainingPlan.setWorkoutSessions(getDerivedWorkoutSessions(trainingPlan.getTrainingPlanId(), trainingPlan.getBasePlanId()));
+            }
+        }
+    }
+
+    // a derived plan shows unsaved sessions without an id and without any progress, the items of the base plan
+    // without progress are shared with the cached base plan instead of being copied, so they keep their ids
+    private List<WorkoutSession> getDerivedWorkoutSessions(long trainingPlanId, long basePlanId) {
+        TrainingPlan baseTrainingPlan = getTrainingPlan(basePlanId, PREFETCH.WORKOUT_ITEMS);
+
+        if (baseTrainingPlan == null) {
+            return new ArrayList<>();
+        }
+
+        List<WorkoutSession> workoutSessionList = new ArrayList<>(baseTrainingPlan.getWorkoutSessionSize());
+
+        for (WorkoutSession baseWorkoutSession : baseTrainingPlan.getWorkoutSessions()) {
+            List<WorkoutItem> workoutItemList = new ArrayList<>(baseWorkoutSession.getWorkoutItems().size());
+
+            for (WorkoutItem workoutItem : baseWorkoutSession.getWorkoutItems()) {
+                if (workoutItem.isFinished() || workoutItem.getElapsedTime() != 0) {
+                    workoutItem = workoutItem.clone();
+                    workoutItem.setFinished(false);
+                    workoutItem.setElapsedTime(0);
+                }
+
+                workoutItemList.add(workoutItem);
+            }
+
+            WorkoutSession workoutSession = baseWorkoutSession.withWorkoutItems(workoutItemList);
+            workoutSession.setWorkoutSessionId(0);
+            workoutSession.setTrainingPlanId(trainingPlanId);
+            workoutSession.setFinished(false);
+            workoutSessionList.add(workoutSession);
+        }
+
+        return workoutSessionList;
+    }
+
+    private synchronized long getCacheGeneration() {
+        return cacheGeneration;
+    }
+
+    private synchronized void invalidateCache() {
+        cacheGeneration++;
+        trainingPlanCache.clear();
+        workoutSessionCache.clear();
+        trainingPlanIdListCache = null;
+    }
+
+    private synchronized void markProgressStale() {
+        progressStale = true;
+    }
+
+    // reapplies the progress to the cached plans and sessions, their definitions stay cached,
+    // changed objects are replaced by copies and the unchanged children are shared with the previous snapshot
+    private void refreshCachedProgress() {
+        if (!progressStale) {
+            return;
+        }
+
+        progressStale = false;
+
+        if (trainingPlanCache.size() == 0 && workoutSessionCache.size() == 0) {
+            return;
+        }
+
+        ProgressIndex progressIndex = new ProgressIndex(appDB.progressDAO().getAll(getUserId()));
+        // a session cached on its own and in its plan is the same object, so both get the same refreshed copy
+        Map<WorkoutSession, WorkoutSession> refreshedWorkoutSessions = new IdentityHashMap<>();
+
+        for (int i=0; i<workoutSessionCache.size(); i++) {
+            workoutSessionCache.setValueAt(i, refreshProgress(workoutSessionCache.valueAt(i), progressIndex, refreshedWorkoutSessions));
+        }
+
+        for (int i=0; i<trainingPlanCache.size(); i++) {
+            trainingPlanCache.setValueAt(i, refreshProgress(trainingPlanCache.valueAt(i), progressIndex, refreshedWorkoutSessions));
+        }
+    }
+
+    private TrainingPlan refreshProgress(TrainingPlan trainingPlan, ProgressIndex progressIndex, Map<WorkoutSession, WorkoutSession> refreshedWorkoutSessions) {
+        int countFinishedTraining = progressIndex.getCountFinishedTraining(trainingPlan.getTrainingPlanId());
+        List<WorkoutSession> workoutSessionList = trainingPlan.isWorkoutSessionsFetched() ? trainingPlan.getWorkoutSessions() : null;
+        boolean changed = (countFinishedTraining != trainingPlan.getCountFinishedTraining());
+
+        // the sessions of a derived plan never show progress
+        if (workoutSessionList != null && trainingPlan.getBasePlanId() == null) {
+            List<WorkoutSession> refreshedWorkoutSessionList = new ArrayList<>(workoutSessionList.size());
+
+            for (WorkoutSession workoutSession : workoutSessionList) {
+                WorkoutSession refreshedWorkoutSession = refreshProgress(workoutSession, progressIndex, refreshedWorkoutSessions);
+                changed |= (refreshedWorkoutSession != workoutSession);
+                refreshedWorkoutSessionList.add(refreshedWorkoutSession);
+            }
+
+            workoutSessionList = refreshedWorkoutSessionList;
+        }
+
+        if (!changed) {
+            return trainingPlan;
+        }
+
+        TrainingPlan refreshedTrainingPlan = trainingPlan.withWorkoutSessions(workoutSessionList);
+        refreshedTrainingPlan.setCountFinishedTraining(countFinishedTraining);
+
+        return refreshedTrainingPlan;
+    }
+
+    private WorkoutSession refreshProgress(WorkoutSession workoutSession, ProgressIndex progressIndex, Map<WorkoutSession, WorkoutSession> refreshedWorkoutSessions) {
+        WorkoutSession refreshedWorkoutSession = refreshedWorkoutSessions.get(workoutSession);
+
+        if (refreshedWorkoutSession != null) {
+            return refreshedWorkoutSession;
+        }
+
+        boolean finished = progressIndex.isWorkoutSessionFinished(workoutSession.getWorkoutSessionId());
+        List<WorkoutItem> workoutItemList = workoutSession.isWorkoutItemsFetched() ? workoutSession.getWorkoutItems() : null;
+        boolean changed = (finished != workoutSession.isFinished());
+
+        if (workoutItemList != null) {
+            List<WorkoutItem> refreshedWorkoutItemList = new ArrayList<>(workoutItemList.size());
+
+            for (WorkoutItem workoutItem : workoutItemList) {
+                Progress progress = progressIndex.getWorkoutItemProgress(workoutItem.getWorkoutItemId());
+                long elapsedTime = (progress != null) ? progress.getValue() : 0;
+
+                if (workoutItem.isFinished() != (progress != null) || workoutItem.getElapsedTime() != elapsedTime) {
+                    workoutItem = workoutItem.clone();
+                    workoutItem.setFinished(progress != null);
+                    workoutItem.setElapsedTime(elapsedTime);
+                    changed = true;
+                }
+
+                refreshedWorkoutItemList.add(workoutItem);
+            }
+
+            workoutItemList = refreshedWorkoutItemList;
+        }
+
+        refreshedWorkoutSession = workoutSession;
+
+        if (changed) {
+            refreshedWorkoutSession = workoutSession.withWorkoutItems(workoutItemList);
+            refreshedWorkoutSession.setFinished(finished);
+        }
+
+        refreshedWorkoutSessions.put(workoutSession, refreshedWorkoutSession);
+
+        return refreshedWorkoutSession;
+    }
+
+    // sets the progress fields of freshly loaded entities, entities without a progress row are unfinished
+    private void applyProgress(List<TrainingPlan> trainingPlanList, List<WorkoutSession> workoutSessionList, List<WorkoutItem> workoutItemList, List<Progress> progressList) {
+        ProgressIndex progressIndex = new ProgressIndex(progressList);
+
+        for (TrainingPlan trainingPlan : trainingPlanList) {
+            trainingPlan.setCountFinishedTraining(progressIndex.getCountFinishedTraining(trainingPlan.getTrainingPlanId()));
+        }
+
+        for (WorkoutSession workoutSession : workoutSessionList) {
+            workoutSession.setFinished(progressIndex.isWorkoutSessionFinished(workoutSession.getWorkoutSessionId()));
+        }
+
+        for (WorkoutItem workoutItem : workoutItemList) {
+            Progress progress = progressIndex.getWorkoutItemProgress(workoutItem.getWorkoutItemId());
+            workoutItem.setFinished(progress != null);
+            workoutItem.setElapsedTime(progress != null ? progress.getValue() : 0);
+        }
+    }
+
+    // the progress rows of the current user by entity
+    private static class ProgressIndex {
+        private final LongSparseArray<Progress> trainingPlanProgress = new LongSparseArray<>();
+        private final LongSparseArray<Progress> workoutSessionProgress = new LongSparseArray<>();
+        private final LongSparseArray<Progress> workoutItemProgress = new LongSparseArray<>();
+
+        ProgressIndex(List<Progress> progressList) {
+            for (Progress progress : progressList) {
+                switch (progress.getType()) {
+                    case Progress.TYPE_TRAINING_PLAN:
+                        trainingPlanProgress.put(progress.getEntityId(), progress);
+                        break;
+                    case Progress.TYPE_WORKOUT_SESSION:
+                        workoutSessionProgress.put(progress.getEntityId(), progress);
+                        break;
+                    case Progress.TYPE_WORKOUT_ITEM:
+                        workoutItemProgress.put(progress.getEntityId(), progress);
+                        break;
+                }
+            }
+        }
+
+        int getCountFinishedTraining(long trainingPlanId) {
+            Progress progress = trainingPlanProgress.get(trainingPlanId);
+
+            return (progress != null) ? (int)progress.getValue() : 0;
+        }
+
+        boolean isWorkoutSessionFinished(long workoutSessionId) {
+            return workoutSessionProgress.get(workoutSessionId) != null;
+        }
+
+        Progress getWorkoutItemProgress(long workoutItemId) {
+            return workoutItemProgress.get(workoutItemId);
+        }
+    }
+
+    private long getUserId() {
+        return user.getUserId();
+    }
+
+    // keeps whichever of the cached and the new instance was loaded deeper, so a lower prefetch level never
+    // replaces children which are already cached
+    private TrainingPlan cacheTrainingPlan(TrainingPlan trainingPlan, long generation) {
+        // the database changed while loading, hand out the result without caching it
+        if (generation != cacheGeneration) {
+            return trainingPlan;
+        }
+
+        // the sessions of a derived plan are unsaved copies, they have no id to be cached with
+        if (trainingPlan.isWorkoutSessionsFetched() && trainingPlan.getBasePlanId() == null) {
+            List<WorkoutSession> workoutSessionList = trainingPlan.getWorkoutSessions();
+
+            for (int i=0; i<workoutSessionList.size(); i++) {
+                workoutSessionList.set(i, cacheWorkoutSession(workoutSessionList.get(i), generation));
+            }
+        }
+
+        TrainingPlan cachedTrainingPlan = trainingPlanCache.get(trainingPlan.getTrainingPlanId());
+
+        if (cachedTrainingPlan != null && isFetched(cachedTrainingPlan, getFetchedLevel(trainingPlan))) {
+            return cachedTrainingPlan;
+        }
+
+        trainingPlanCache.put(trainingPlan.getTrainingPlanId(), trainingPlan);
+
+        return trainingPlan;
+    }
+
+    private WorkoutSession cacheWorkoutSession(WorkoutSession workoutSession, long generation) {
+        if (generation != cacheGeneration) {
+            return workoutSession;
+        }
+
+        WorkoutSession cachedWorkoutSession = workoutSessionCache.get(workoutSession.getWorkoutSessionId());
+
+        if (cachedWorkoutSession != null && (cachedWorkoutSession.isWorkoutItemsFetched() || !workoutSession.isWorkoutItemsFetched())) {
+            return cachedWorkoutSession;
+        }
+
+        workoutSessionCache.put(workoutSession.getWorkoutSessionId(), workoutSession);
+
+        return workoutSession;
+    }
+
+    // the list screens bind projections, so they don't load descriptions and child lists they don't show
+
+    public List<TrainingPlanSummary> getTrainingPlanSummaries() {
+        return appDB.trainingPlanDAO().getAllSummaries(getUserId());
+    }
+
+    // a derived plan shows the workout sessions of its base plan without their progress until it is materialized
+    public List<WorkoutSessionSummary> getWorkoutSessionPage(long trainingPlanId, WorkoutSessionSummary lastWorkoutSession, int pageSize) {
+        Long basePlanId = appDB.trainingPlanDAO().getBasePlanId(trainingPlanId);
+        long sessionPlanId = (basePlanId != null) ? basePlanId : trainingPlanId;
+        List<WorkoutSessionSummary> workoutSessionPage;
+
+        if (lastWorkoutSession == null) {
+            workoutSessionPage = appDB.workoutSessionDAO().getSummaryPage(getUserId(), sessionPlanId, Long.MIN_VALUE, Long.MIN_VALUE, pageSize);
+        } else {
+            workoutSessionPage = appDB.workoutSessionDAO().getSummaryPage(getUserId(), sessionPlanId, lastWorkoutSession.getOrderNr(), lastWorkoutSession.getWorkoutSessionId(), pageSize);
+        }
+
+        if (basePlanId != null) {
+            for (WorkoutSessionSummary workoutSession : workoutSessionPage) {
+                workoutSession.setTrainingPlanId(trainingPlanId);
+                workoutSession.setFinished(false);
+            }
+        }
+
+        return workoutSessionPage;
+    }
+
+    public List<WorkoutItemSummary> getWorkoutItemPage(long workoutSessionId, WorkoutItemSummary lastWorkoutItem, int pageSize) {
+        if (lastWorkoutItem == null) {
+            return appDB.workoutItemDAO().getSummaryPage(getUserId(), workoutSessionId, Long.MIN_VALUE, Long.MIN_VALUE, pageSize);
+        }
+
+        return appDB.workoutItemDAO().getSummaryPage(getUserId(), workoutSessionId, lastWorkoutItem.getOrderNr(), lastWorkoutItem.getWorkoutItemId(), pageSize);
+    }
+
+    public int getWorkoutSessionCount(long trainingPlanId) {
+        return appDB.workoutSessionDAO().count(trainingPlanId);
+    }
+
+    public long getNextWorkoutSessionOrderNr(long trainingPlanId) {
+        Long maxOrderNr = appDB.workoutSessionDAO().getMaxOrderNr(trainingPlanId);
+
+        return (maxOrderNr == null) ? OrderUtils.GAP : Math.max(maxOrderNr, 0) + OrderUtils.GAP;
+    }
+
     public WorkoutItem getWorkoutItem(long workoutItemId) {
-        return appDB.workoutItemDAO().get(workoutItemId);
+        WorkoutItem workoutItem = appDB.workoutItemDAO().get(workoutItemId);
+        workoutItem.setExercise(appDB.exerciseDAO().get(workoutItem.getExerciseId()));
+
+        Progress progress = appDB.progressDAO().get(getUserId(), Progress.TYPE_WORKOUT_ITEM, workoutItemId);
+        workoutItem.setFinished(progress != null);
+        workoutItem.setElapsedTime(progress != null ? progress.getValue() : 0);
+
+        return workoutItem;
     }
 
     public List<WorkoutItem> getAllUniqueWorkoutItems() {
-        return appDB.workoutItemDAO().getAllUnique();
+        List<WorkoutItem> workoutItemList = appDB.workoutItemDAO().getAllUnique();
+        attachExercises(workoutItemList, appDB.exerciseDAO().getAll());
+
+        return workoutItemList;
     }
 
-    public long insertTrainingPlan(TrainingPlan trainingPlan) {
-        long trainingPlanId = appDB.trainingPlanDAO().insert(trainingPlan);
-        for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
-            workoutSession.setTrainingPlanId(trainingPlanId);
-            long workoutSessionId = appDB.workoutSessionDAO().insert(workoutSession);
+    private void attachExercises(List<WorkoutItem> workoutItemList, List<Exercise> exerciseList) {
+        LongSparseArray<Exercise> exerciseMap = new LongSparseArray<>(exerciseList.size());
+
+        for (Exercise exercise : exerciseList) {
+            exerciseMap.put(exercise.getExerciseId(), exercise);
+        }
+
+        for (WorkoutItem workoutItem : workoutItemList) {
+            Exercise exercise = exerciseMap.get(workoutItem.getExerciseId());
+
+            if (exercise != null) {
+                workoutItem.setExercise(exercise);
+            }
+        }
+    }
+
+    // points the workout items to the exercise with their metadata, the exercise is created if there is none yet
+    // returns true if a workout item was moved to another exercise
+    private boolean resolveExercises(List<WorkoutItem> workoutItemList) {
+        HashMap<Exercise, Long> exerciseIdMap = new HashMap<>();
+        boolean exerciseChanged = false;
+
+        for (WorkoutItem workoutItem : workoutItemList) {
+            Exercise exercise = workoutItem.getExercise();
+            Long exerciseId = exerciseIdMap.get(exercise);
 
-            for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                workoutItem.setWorkoutSessionId(workoutSessionId);
-                appDB.workoutItemDAO().insert(workoutItem);
+            if (exerciseId == null) {
+                exerciseId = appDB.exerciseDAO().find(exercise.getName(), exercise.getDescription(), exercise.getImagePath(), exercise.isImagePathExternal(),
+                        exercise.getVideoPath(), exercise.isVideoPathExternal());
+
+                if (exerciseId == null) {
+                    exerciseId = appDB.exerciseDAO().insert(exercise);
+                }
+
+                exerciseIdMap.put(exercise, exerciseId);
+            }
+
+            if (workoutItem.getExerciseId() != exerciseId) {
+                workoutItem.setExerciseId(exerciseId);
+                exerciseChanged = true;
             }
         }
 
-        return trainingPlanId;
+        return exerciseChanged;
+    }
+
+    public long insertTrainingPlan(TrainingPlan trainingPlan) {
+        return insertTrainingPlans(Collections.singletonList(trainingPlan))[0];
+    }
+
+    public long[] insertTrainingPlans(final List<TrainingPlan> trainingPlanList) {
+        long[] trainingPlanIds = appDB.runInTransaction(new Callable<long[]>() {
+            @Override
+            public long[] call() {
+                long[] trainingPlanIds = appDB.trainingPlanDAO().insertAll(trainingPlanList);
+                List<WorkoutSession> workoutSessionList = new ArrayList<>();
+
+                for (int i=0; i<trainingPlanList.size(); i++) {
+                    TrainingPlan trainingPlan = trainingPlanList.get(i);
+                    trainingPlan.setTrainingPlanId(trainingPlanIds[i]);
+
+                    OrderUtils.reorder(trainingPlan.getWorkoutSessions());
+
+                    for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
+                        workoutSession.setTrainingPlanId(trainingPlanIds[i]);
+                        workoutSessionList.add(workoutSession);
+                    }
+                }
+
+                insertWorkoutSessions(workoutSessionList);
+
+                return trainingPlanIds;
+            }
+        });
+
+        invalidateCache();
+
+        return trainingPlanIds;
     }
 
     public long insertWorkoutSession(WorkoutSession workoutSession) {
-        long workoutSessionId = appDB.workoutSessionDAO().insert(workoutSession);
+        return insertWorkoutSessions(Collections.singletonList(workoutSession))[0];
+    }
 
-        for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-            workoutItem.setWorkoutSessionId(workoutSessionId);
-            appDB.workoutItemDAO().insert(workoutItem);
-        }
+    public long[] insertWorkoutSessions(final List<WorkoutSession> workoutSessionList) {
+        long[] workoutSessionIds = appDB.runInTransaction(new Callable<long[]>() {
+            @Override
+            public long[] call() {
+                long[] workoutSessionIds = appDB.workoutSessionDAO().insertAll(workoutSessionList);
+                List<WorkoutItem> workoutItemList = new ArrayList<>();
+
+                for (int i=0; i<workoutSessionList.size(); i++) {
+                    WorkoutSession workoutSession = workoutSessionList.get(i);
+                    workoutSession.setWorkoutSessionId(workoutSessionIds[i]);
+
+                    OrderUtils.reorder(workoutSession.getWorkoutItems());
+
+                    for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
+                        workoutItem.setWorkoutSessionId(workoutSessionIds[i]);
+                        workoutItemList.add(workoutItem);
+                    }
+                }
 
-        return workoutSessionId;
+                resolveExercises(workoutItemList);
+                long[] workoutItemIds = appDB.workoutItemDAO().insertAll(workoutItemList);
+
+                for (int i=0; i<workoutItemList.size(); i++) {
+                    workoutItemList.get(i).setWorkoutItemId(workoutItemIds[i]);
+                }
+
+                return workoutSessionIds;
+            }
+        });
+
+        invalidateCache();
+
+        return workoutSessionIds;
     }
 
-    public long insertWorkoutItem(WorkoutItem workoutItem) {
-        long workoutItemId = appDB.workoutItemDAO().insert(workoutItem);
+    public long insertWorkoutItem(final WorkoutItem workoutItem) {
+        long workoutItemId = appDB.runInTransaction(new Callable<Long>() {
+            @Override
+            public Long call() {
+                resolveExercises(Collections.singletonList(workoutItem));
+                return appDB.workoutItemDAO().insert(workoutItem);
+            }
+        });
+        invalidateCache();
 
         return workoutItemId;
     }
 
-    public void deleteTrainingPlan(TrainingPlan trainingPlan) {
-        for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
-            appDB.workoutItemDAO().deleteAll(workoutSession.getWorkoutSessionId());
+    // workout sessions and items are removed by the ON DELETE CASCADE foreign keys
+    public void deleteTrainingPlan(long trainingPlanId) {
+        // the derived plans still share the workout sessions which are deleted with the base plan
+        for (long derivedTrainingPlanId : appDB.trainingPlanDAO().getDerivedPlanIds(trainingPlanId)) {
+            materializeTrainingPlan(derivedTrainingPlanId);
+        }
+
+        appDB.trainingPlanDAO().delete(trainingPlanId);
+        appDB.exerciseDAO().deleteUnused();
+        appDB.progressDAO().deleteOrphans();
+        invalidateCache();
+        deleteUnusedMedia();
+    }
+
+    /**
+     * Duplicates a training plan by inserting only its row, the workout sessions stay shared with the base plan
+     * until the duplicate is trained or edited (see {@link #materializeTrainingPlan(long)}).
+     */
+    public long deriveTrainingPlan(final long trainingPlanId, final long orderNr) {
+        long derivedTrainingPlanId = appDB.runInTransaction(new Callable<Long>() {
+            @Override
+            public Long call() {
+                TrainingPlan derivedTrainingPlan = appDB.trainingPlanDAO().get(trainingPlanId);
+                Long basePlanId = derivedTrainingPlan.getBasePlanId();
+
+                derivedTrainingPlan.setTrainingPlanId(0);
+                derivedTrainingPlan.setOrderNr(orderNr);
+                derivedTrainingPlan.setBasePlanId(basePlanId != null ? basePlanId : trainingPlanId);
+
+                return appDB.trainingPlanDAO().insert(derivedTrainingPlan);
+            }
+        });
+
+        invalidateCache();
+
+        return derivedTrainingPlanId;
+    }
+
+    // gives a derived plan its own copy of the base plan's workout sessions, progress is stored against those
+    public void materializeTrainingPlan(final long trainingPlanId) {
+        boolean materialized = appDB.runInTransaction(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                TrainingPlan trainingPlan = appDB.trainingPlanDAO().get(trainingPlanId);
+
+                if (trainingPlan == null || trainingPlan.getBasePlanId() == null) {
+                    return false;
+                }
+
+                // the insert sets the ids of the sessions and items, so the shared items are copied first
+                List<WorkoutSession> workoutSessionList = new ArrayList<>();
+
+                for (WorkoutSession workoutSession : getDerivedWorkoutSessions(trainingPlanId, trainingPlan.getBasePlanId())) {
+                    workoutSessionList.add(workoutSession.clone());
+                }
+
+                insertWorkoutSessions(workoutSessionList);
+                trainingPlan.setBasePlanId(null);
+                appDB.trainingPlanDAO().update(trainingPlan);
+
+                return true;
+            }
+        });
+
+        if (materialized) {
+            Timber.d("Materialized derived training plan " + trainingPlanId);
+            invalidateCache();
         }
+    }
+
+    // editing the workout sessions of a training plan must not change the plans sharing them
+    public void detachTrainingPlan(long trainingPlanId) {
+        materializeTrainingPlan(trainingPlanId);
+
+        for (long derivedTrainingPlanId : appDB.trainingPlanDAO().getDerivedPlanIds(trainingPlanId)) {
+            materializeTrainingPlan(derivedTrainingPlanId);
+        }
+    }
+
+    public void detachWorkoutSession(long workoutSessionId) {
+        WorkoutSession workoutSession = appDB.workoutSessionDAO().get(workoutSessionId);
 
-        appDB.workoutSessionDAO().deleteAll(trainingPlan.getTrainingPlanId());
-        appDB.trainingPlanDAO().delete(trainingPlan);
+        if (workoutSession != null) {
+            detachTrainingPlan(workoutSession.getTrainingPlanId());
+        }
     }
 
-    public void deleteWorkoutSession(WorkoutSession workoutSession) {
-        appDB.workoutItemDAO().deleteAll(workoutSession.getWorkoutSessionId());
+    /**
+     * A derived plan lists the workout sessions of its base plan, before one of them is opened for training or editing
+     * the derived plan gets its own copy. Returns the id of the copy at the same position, or the given id if the plan isn't derived.
+     */
+    public long materializeWorkoutSession(long trainingPlanId, long workoutSessionId) {
+        Long basePlanId = appDB.trainingPlanDAO().getBasePlanId(trainingPlanId);
+
+        if (basePlanId == null) {
+            return workoutSessionId;
+        }
+
+        int position = appDB.workoutSessionDAO().getIds(basePlanId).indexOf(workoutSessionId);
+        materializeTrainingPlan(trainingPlanId);
+        List<Long> workoutSessionIds = appDB.workoutSessionDAO().getIds(trainingPlanId);
 
-        appDB.workoutSessionDAO().delete(workoutSession);
+        return (position >= 0 && position < workoutSessionIds.size()) ? workoutSessionIds.get(position) : workoutSessionId;
     }
 
-    public void deleteWorkoutItem(WorkoutItem workoutItem) {
-        appDB.workoutItemDAO().delete(workoutItem);
+    public void deleteWorkoutSession(long workoutSessionId) {
+        appDB.workoutSessionDAO().delete(workoutSessionId);
+        appDB.exerciseDAO().deleteUnused();
+        appDB.progressDAO().deleteOrphans();
+        invalidateCache();
+        deleteUnusedMedia();
+    }
+
+    public void deleteWorkoutItem(long workoutItemId) {
+        appDB.workoutItemDAO().delete(workoutItemId);
+        appDB.exerciseDAO().deleteUnused();
+        appDB.progressDAO().deleteOrphans();
+        invalidateCache();
+        deleteUnusedMedia();
     }
 
     public void updateWorkoutItem(WorkoutItem workoutItem) {
-        appDB.workoutItemDAO().update(workoutItem);
+        updateWorkoutItems(Collections.singletonList(workoutItem));
+    }
+
+    public void updateWorkoutItems(final List<WorkoutItem> workoutItemList) {
+        boolean exerciseChanged = appDB.runInTransaction(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                boolean exerciseChanged = resolveExercises(workoutItemList);
+                appDB.workoutItemDAO().updateAll(workoutItemList);
+
+                if (exerciseChanged) {
+                    appDB.exerciseDAO().deleteUnused();
+                }
+
+                return exerciseChanged;
+            }
+        });
+        invalidateCache();
+
+        if (exerciseChanged) {
+            deleteUnusedMedia();
+        }
     }
 
     public void updateWorkoutSession(WorkoutSession workoutSession) {
         appDB.workoutSessionDAO().update(workoutSession);
+        invalidateCache();
     }
 
     public void updateTrainingPlan(TrainingPlan trainingPlan) {
         appDB.trainingPlanDAO().update(trainingPlan);
+        invalidateCache();
+        deleteUnusedMedia();
+    }
+
+    /**
+     * Removes the media store files which are no longer referenced, the references of a file are the
+     * training plans and exercises using its path. Runs queued on the database executor, so it never
+     * interferes with an import whose media files are stored before its training plan.
+     */
+    public void deleteUnusedMedia() {
+        executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> referencedPaths = new HashSet<>(appDB.exerciseDAO().getExternalMediaPaths());
+                referencedPaths.addAll(appDB.trainingPlanDAO().getExternalImagePaths());
+
+                int deleted = mediaFileStore.deleteUnused(referencedPaths);
+
+                if (deleted > 0) {
+                    Timber.d("Deleted " + deleted + " unused media files");
+                }
+            }
+        });
+    }
+
+    // a reorder on the list screens only writes the orderNr column of the moved rows
+
+    public void updateTrainingPlanOrder(final List<TrainingPlanSummary> trainingPlanList) {
+        appDB.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (TrainingPlanSummary trainingPlan : trainingPlanList) {
+                    appDB.trainingPlanDAO().updateOrderNr(trainingPlan.getTrainingPlanId(), trainingPlan.getOrderNr());
+                }
+            }
+        });
+        invalidateCache();
+    }
+
+    public void updateWorkoutSessionOrder(final List<WorkoutSessionSummary> workoutSessionList) {
+        appDB.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (WorkoutSessionSummary workoutSession : workoutSessionList) {
+                    appDB.workoutSessionDAO().updateOrderNr(workoutSession.getWorkoutSessionId(), workoutSession.getOrderNr());
+                }
+            }
+        });
+        invalidateCache();
+    }
+
+    public void updateWorkoutItemOrder(final List<WorkoutItemSummary> workoutItemList) {
+        appDB.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                for (WorkoutItemSummary workoutItem : workoutItemList) {
+                    appDB.workoutItemDAO().updateOrderNr(workoutItem.getWorkoutItemId(), workoutItem.getOrderNr());
+                }
+            }
+        });
+        invalidateCache();
+    }
+
+    // the progress is kept in the sparse Progress table, marking as finished inserts a row and a reset is a single delete
+
+    public void finishWorkoutItem(WorkoutItem workoutItem) {
+        appDB.progressDAO().insert(new Progress(getUserId(), Progress.TYPE_WORKOUT_ITEM, workoutItem.getWorkoutItemId(), workoutItem.getElapsedTime()));
+        markProgressStale();
+    }
+
+    public void resetTrainingPlans() {
+        appDB.progressDAO().deleteAll(getUserId());
+        markProgressStale();
+    }
+
+    public void resetTrainingPlan(long trainingPlanId) {
+        appDB.progressDAO().deleteFinishedOfTrainingPlan(getUserId(), trainingPlanId);
+        markProgressStale();
+    }
+
+    public void resetWorkoutSession(long workoutSessionId) {
+        appDB.progressDAO().deleteFinishedOfWorkoutSession(getUserId(), workoutSessionId);
+        markProgressStale();
+    }
+
+    public List<Long> getFinishedTrainingPlanIds() {
+        return appDB.progressDAO().getAllFinishedTrainingPlanIds(getUserId());
+    }
+
+    public void rollOverTrainingPlan(final long trainingPlanId) {
+        appDB.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                appDB.progressDAO().insertIfAbsent(new Progress(getUserId(), Progress.TYPE_TRAINING_PLAN, trainingPlanId, 0));
+                appDB.progressDAO().incrementCountFinishedTraining(getUserId(), trainingPlanId);
+                resetTrainingPlan(trainingPlanId);
+            }
+        });
+        markProgressStale();
+    }
+
+    /**
+     * Marks the workout session as finished and rolls its training plan over if it was the last unfinished session.
+     *
+     * @return true if the training plan was rolled over
+     */
+    public boolean finishWorkoutSession(final WorkoutSession workoutSession) {
+        boolean rolledOver = appDB.runInTransaction(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                appDB.progressDAO().insert(new Progress(getUserId(), Progress.TYPE_WORKOUT_SESSION, workoutSession.getWorkoutSessionId(), 0));
+
+                if (appDB.progressDAO().countUnfinishedWorkoutSessions(getUserId(), workoutSession.getTrainingPlanId()) == 0) {
+                    rollOverTrainingPlan(workoutSession.getTrainingPlanId());
+                    return true;
+                }
+
+                return false;
+            }
+        });
+        markProgressStale();
+
+        return rolledOver;
+    }
+
+    /**
+     * Appends the workout log entry and adds it to its daily and weekly rollup,
+     * so history statistics only have to read one row per day or week.
+     */
+    public long insertWorkoutLog(final WorkoutLog workoutLog) {
+        return appDB.runInTransaction(new Callable<Long>() {
+            @Override
+            public Long call() {
+                long workoutLogId = appDB.workoutLogDAO().insert(workoutLog);
+                workoutLog.setWorkoutLogId(workoutLogId);
+
+                long day = workoutLog.getDay();
+                long week = workoutLog.getWeek();
+                boolean isNewDay = appDB.workoutLogDAO().insertDayIfAbsent(new WorkoutLogDay(day)) != -1L;
+                appDB.workoutLogDAO().insertWeekIfAbsent(new WorkoutLogWeek(week));
+
+                appDB.workoutLogDAO().addToDay(day, workoutLog.getActiveTime(), workoutLog.getPausedTime());
+                appDB.workoutLogDAO().addToWeek(week, isNewDay ? 1 : 0, workoutLog.getActiveTime(), workoutLog.getPausedTime());
+
+                return workoutLogId;
+            }
+        });
+    }
+
+    public List<WorkoutLogDay> getWorkoutLogDays(long fromDay, long toDay) {
+        return appDB.workoutLogDAO().getDays(fromDay, toDay);
+    }
+
+    public List<WorkoutLogWeek> getWorkoutLogWeeks(long fromWeek, long toWeek) {
+        return appDB.workoutLogDAO().getWeeks(fromWeek, toWeek);
+    }
+
+    // number of consecutive training days up to today, a streak isn't broken until today is over
+    public int getWorkoutStreak() {
+        long today = WorkoutLog.toDay(System.currentTimeMillis());
+        List<Long> activeDays = appDB.workoutLogDAO().getActiveDaysDescending(today);
+
+        int streak = 0;
+        long expectedDay = (!activeDays.isEmpty() && activeDays.get(0) == today) ? today : today - 1;
+
+        for (long day : activeDays) {
+            if (day != expectedDay) {
+                break;
+            }
+            streak++;
+            expectedDay--;
+        }
+
+        return streak;
     }
 
     public void updateUser(User user) {
@@ -250,4 +1394,8 @@ public class OpenWorkout {
     public SoundUtils getSoundUtils() {
         return soundUtils;
     }
+
+    public CompletionRollover getCompletionRollover() {
+        return completionRollover;
+    }
 }
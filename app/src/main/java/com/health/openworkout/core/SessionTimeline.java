@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core;
+
+import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutSession;
+
+import java.util.List;
+
+/**
+ * Flat timeline of the prepare, work and break phases of a workout session with their start offsets in seconds.
+ * The break after the last workout item is left out, the session ends with its last workout.
+ * Keeps the unfinished workout items as a circular list, so the next workout item is found without scanning the session.
+ */
+public class SessionTimeline {
+    // workouts in repetition mode have no fixed duration, they are estimated with this time per repetition
+    public static final int SEC_PER_REPETITION = 3;
+
+    public static final int PHASE_PREPARE = 0;
+    public static final int PHASE_WORK = 1;
+    public static final int PHASE_BREAK = 2;
+
+    private final List<WorkoutItem> workoutItemList;
+
+    private final int phaseCount;
+    private final byte[] phaseType;
+    private final int[] phaseItem;
+    private final int[] phaseStart; // in sec
+    private final int[] phaseDuration; // in sec
+    private final int[] itemFirstPhase;
+    private final int[] itemDuration; // in sec
+    private final int totalDuration; // in sec
+
+    private final boolean[] itemFinished;
+    private final int[] nextUnfinished;
+    private final int[] prevUnfinished;
+    private int firstUnfinished;
+    private int unfinishedCount;
+    private int unfinishedDuration; // in sec
+
+    public SessionTimeline(WorkoutSession workoutSession) {
+        workoutItemList = workoutSession.getWorkoutItems();
+
+        int itemCount = workoutItemList.size();
+        phaseCount = Math.max(3 * itemCount - 1, 0);
+        phaseType = new byte[phaseCount];
+        phaseItem = new int[phaseCount];
+        phaseStart = new int[phaseCount];
+        phaseDuration = new int[phaseCount];
+        itemFirstPhase = new int[itemCount];
+        itemDuration = new int[itemCount];
+        itemFinished = new boolean[itemCount];
+        nextUnfinished = new int[itemCount];
+        prevUnfinished = new int[itemCount];
+
+        int phase = 0;
+        int offset = 0;
+
+        for (int i=0; i<itemCount; i++) {
+            WorkoutItem workoutItem = workoutItemList.get(i);
+            itemFirstPhase[i] = phase;
+
+            offset = addPhase(phase++, PHASE_PREPARE, i, offset, workoutItem.getPrepTime());
+            offset = addPhase(phase++, PHASE_WORK, i, offset, getWorkDuration(workoutItem));
+
+            if (i < itemCount - 1) {
+                offset = addPhase(phase++, PHASE_BREAK, i, offset, workoutItem.getBreakTime());
+            }
+
+            itemDuration[i] = offset - phaseStart[itemFirstPhase[i]];
+        }
+
+        totalDuration = offset;
+
+        firstUnfinished = -1;
+        int lastUnfinished = -1;
+
+        for (int i=0; i<itemCount; i++) {
+            itemFinished[i] = workoutItemList.get(i).isFinished();
+
+            if (itemFinished[i]) {
+                continue;
+            }
+
+            if (firstUnfinished == -1) {
+                firstUnfinished = i;
+            } else {
+                nextUnfinished[lastUnfinished] = i;
+                prevUnfinished[i] = lastUnfinished;
+            }
+
+            lastUnfinished = i;
+            unfinishedCount++;
+            unfinishedDuration += itemDuration[i];
+        }
+
+        if (firstUnfinished != -1) {
+            nextUnfinished[lastUnfinished] = firstUnfinished;
+            prevUnfinished[firstUnfinished] = lastUnfinished;
+
+            // items finished before the session started point to the next unfinished item after them, like unlinked ones
+            int next = firstUnfinished;
+
+            for (int i=itemCount-1; i>=0; i--) {
+                if (itemFinished[i]) {
+                    nextUnfinished[i] = next;
+                } else {
+                    next = i;
+                }
+            }
+        }
+    }
+
+    private int addPhase(int phase, int type, int item, int start, int duration) {
+        phaseType[phase] = (byte)type;
+        phaseItem[phase] = item;
+        phaseStart[phase] = start;
+        phaseDuration[phase] = duration;
+
+        return start + duration;
+    }
+
+    public static int getWorkDuration(WorkoutItem workoutItem) {
+        return workoutItem.isTimeMode() ? workoutItem.getWorkoutTime() : workoutItem.getRepetitionCount() * SEC_PER_REPETITION;
+    }
+
+    public int getItemCount() {
+        return workoutItemList.size();
+    }
+
+    public WorkoutItem getWorkoutItem(int item) {
+        return workoutItemList.get(item);
+    }
+
+    public int getPhaseCount() {
+        return phaseCount;
+    }
+
+    public int getPhaseType(int phase) {
+        return phaseType[phase];
+    }
+
+    public int getPhaseItem(int phase) {
+        return phaseItem[phase];
+    }
+
+    public int getPhaseStart(int phase) {
+        return phaseStart[phase];
+    }
+
+    public int getPhaseDuration(int phase) {
+        return phaseDuration[phase];
+    }
+
+    public int getFirstPhase(int item) {
+        return itemFirstPhase[item];
+    }
+
+    // -1 after the last phase
+    public int getNextPhase(int phase) {
+        return phase + 1 < phaseCount ? phase + 1 : -1;
+    }
+
+    // the phase running at the given second of the session, -1 once the session is over
+    public int seek(int sec) {
+        if (sec < 0 || sec >= totalDuration) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = phaseCount - 1;
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+
+            if (phaseStart[mid] <= sec) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    public int getTotalDuration() {
+        return totalDuration;
+    }
+
+    public int getItemDuration(int item) {
+        return itemDuration[item];
+    }
+
+    // the first unfinished workout item at or after the given one in session order, wrapping around at the end
+    public int getNextUnfinishedItem(int item) {
+        if (unfinishedCount == 0) {
+            return -1;
+        }
+
+        if (item < 0) {
+            return firstUnfinished;
+        }
+
+        // finished items keep the successor they had when they were unlinked
+        while (itemFinished[item]) {
+            item = nextUnfinished[item];
+        }
+
+        return item;
+    }
+
+    public void finishItem(int item) {
+        if (itemFinished[item]) {
+            return;
+        }
+
+        itemFinished[item] = true;
+        nextUnfinished[prevUnfinished[item]] = nextUnfinished[item];
+        prevUnfinished[nextUnfinished[item]] = prevUnfinished[item];
+        unfinishedCount--;
+        unfinishedDuration -= itemDuration[item];
+
+        if (firstUnfinished == item) {
+            firstUnfinished = unfinishedCount > 0 ? nextUnfinished[item] : -1;
+        }
+    }
+
+    // estimated time left when the given phase has run for secInPhase, including the rest of the current workout item
+    public int getRemainingDuration(int phase, int secInPhase) {
+        int item = phaseItem[phase];
+        int itemEnd = phaseStart[itemFirstPhase[item]] + itemDuration[item];
+        int remainingInItem = Math.max(itemEnd - phaseStart[phase] - secInPhase, 0);
+
+        return (itemFinished[item] ? unfinishedDuration : unfinishedDuration - itemDuration[item]) + remainingInItem;
+    }
+}
@@ -22,21 +22,30 @@ import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.health.openworkout.core.datatypes.Exercise;
+import com.health.openworkout.core.datatypes.Progress;
 import com.health.openworkout.core.datatypes.TrainingPlan;
 import com.health.openworkout.core.datatypes.User;
 import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutLog;
+import com.health.openworkout.core.datatypes.WorkoutLogDay;
+import com.health.openworkout.core.datatypes.WorkoutLogWeek;
 import com.health.openworkout.core.datatypes.WorkoutSession;
 
-@Database(entities = {User.class, TrainingPlan.class, WorkoutSession.class, WorkoutItem.class}, version = 2)
+@Database(entities = {User.class, TrainingPlan.class, WorkoutSession.class, WorkoutItem.class, Exercise.class,
+        WorkoutLog.class, WorkoutLogDay.class, WorkoutLogWeek.class, Progress.class}, version = 7)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract UserDAO userDAO();
     public abstract TrainingPlanDAO trainingPlanDAO();
     public abstract WorkoutSessionDAO workoutSessionDAO();
     public abstract WorkoutItemDAO workoutItemDAO();
+    public abstract ExerciseDAO exerciseDAO();
+    public abstract WorkoutLogDAO workoutLogDAO();
+    public abstract ProgressDAO progressDAO();
 
-    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+    public static final Migration MIGRATION_1_2 = new TimedMigration(1, 2) {
         @Override
-        public void migrate(SupportSQLiteDatabase database) {
+        protected void onMigrate(SupportSQLiteDatabase database) {
             database.beginTransaction();
             try {
                 // Add isVideoMode
@@ -49,4 +58,162 @@ public abstract class AppDatabase extends RoomDatabase {
             }
         }
     };
-}
\ No newline at end of file
+
+    public static final Migration MIGRATION_2_3 = new TimedMigration(2, 3) {
+        @Override
+        protected void onMigrate(SupportSQLiteDatabase database) {
+            database.beginTransaction();
+            try {
+                // SQLite can't add foreign keys to an existing table, so both child tables are rebuilt
+                database.execSQL("CREATE TABLE WorkoutSession_new (`workoutSessionId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `trainingPlanId` INTEGER NOT NULL, `orderNr` INTEGER NOT NULL, `name` TEXT, `finished` INTEGER NOT NULL, " +
+                        "FOREIGN KEY(`trainingPlanId`) REFERENCES `TrainingPlan`(`trainingPlanId`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+                database.execSQL("INSERT INTO WorkoutSession_new (workoutSessionId, trainingPlanId, orderNr, name, finished) " +
+                        "SELECT workoutSessionId, trainingPlanId, orderNr, name, finished FROM WorkoutSession " +
+                        "WHERE trainingPlanId IN (SELECT trainingPlanId FROM TrainingPlan)");
+                database.execSQL("DROP TABLE WorkoutSession");
+                database.execSQL("ALTER TABLE WorkoutSession_new RENAME TO WorkoutSession");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutSession_trainingPlanId_orderNr` ON `WorkoutSession` (`trainingPlanId`, `orderNr`)");
+
+                // Workout items without a session (e.g. the workout database) get a null session id
+                database.execSQL("CREATE TABLE WorkoutItem_new (`workoutItemId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `workoutSessionId` INTEGER, `orderNr` INTEGER NOT NULL, `name` TEXT, `description` TEXT, `elapsedTime` INTEGER NOT NULL, " +
+                        "`imagePath` TEXT, `isImagePathExternal` INTEGER NOT NULL, `isVideoMode` INTEGER NOT NULL, `videoPath` TEXT, `isVideoPathExternal` INTEGER NOT NULL, `prepTime` INTEGER NOT NULL, `workoutTime` INTEGER NOT NULL, " +
+                        "`breakTime` INTEGER NOT NULL, `repetitionCount` INTEGER NOT NULL, `isTimeMode` INTEGER NOT NULL, `finished` INTEGER NOT NULL, " +
+                        "FOREIGN KEY(`workoutSessionId`) REFERENCES `WorkoutSession`(`workoutSessionId`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+                database.execSQL("INSERT INTO WorkoutItem_new (workoutItemId, workoutSessionId, orderNr, name, description, elapsedTime, imagePath, isImagePathExternal, isVideoMode, videoPath, " +
+                        "isVideoPathExternal, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode, finished) " +
+                        "SELECT workoutItemId, CASE WHEN workoutSessionId IN (SELECT workoutSessionId FROM WorkoutSession) THEN workoutSessionId ELSE NULL END, " +
+                        "orderNr, name, description, elapsedTime, imagePath, isImagePathExternal, isVideoMode, videoPath, " +
+                        "isVideoPathExternal, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode, finished FROM WorkoutItem");
+                database.execSQL("DROP TABLE WorkoutItem");
+                database.execSQL("ALTER TABLE WorkoutItem_new RENAME TO WorkoutItem");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutItem_workoutSessionId_orderNr` ON `WorkoutItem` (`workoutSessionId`, `orderNr`)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutItem_name` ON `WorkoutItem` (`name`)");
+
+                database.setTransactionSuccessful();
+            }
+            finally {
+                database.endTransaction();
+            }
+        }
+    };
+
+    public static final Migration MIGRATION_3_4 = new TimedMigration(3, 4) {
+        @Override
+        protected void onMigrate(SupportSQLiteDatabase database) {
+            database.beginTransaction();
+            try {
+                // Move the static workout metadata into one Exercise row per distinct content
+                database.execSQL("CREATE TABLE IF NOT EXISTS `Exercise` (`exerciseId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT, `description` TEXT, `imagePath` TEXT, `isImagePathExternal` INTEGER NOT NULL, " +
+                        "`videoPath` TEXT, `isVideoPathExternal` INTEGER NOT NULL)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_Exercise_name` ON `Exercise` (`name`)");
+                database.execSQL("INSERT INTO Exercise (name, description, imagePath, isImagePathExternal, videoPath, isVideoPathExternal) " +
+                        "SELECT DISTINCT name, description, imagePath, isImagePathExternal, videoPath, isVideoPathExternal FROM WorkoutItem");
+
+                // Rebuild WorkoutItem without the metadata columns, referencing its exercise instead
+                database.execSQL("CREATE TABLE WorkoutItem_new (`workoutItemId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `workoutSessionId` INTEGER, `exerciseId` INTEGER NOT NULL, `orderNr` INTEGER NOT NULL, " +
+                        "`elapsedTime` INTEGER NOT NULL, `isVideoMode` INTEGER NOT NULL, `prepTime` INTEGER NOT NULL, `workoutTime` INTEGER NOT NULL, `breakTime` INTEGER NOT NULL, `repetitionCount` INTEGER NOT NULL, " +
+                        "`isTimeMode` INTEGER NOT NULL, `finished` INTEGER NOT NULL, " +
+                        "FOREIGN KEY(`workoutSessionId`) REFERENCES `WorkoutSession`(`workoutSessionId`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                        "FOREIGN KEY(`exerciseId`) REFERENCES `Exercise`(`exerciseId`) ON UPDATE NO ACTION ON DELETE NO ACTION )");
+                database.execSQL("INSERT INTO WorkoutItem_new (workoutItemId, workoutSessionId, exerciseId, orderNr, elapsedTime, isVideoMode, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode, finished) " +
+                        "SELECT workoutItemId, workoutSessionId, " +
+                        "(SELECT exerciseId FROM Exercise WHERE Exercise.name IS WorkoutItem.name AND Exercise.description IS WorkoutItem.description " +
+                        "AND Exercise.imagePath IS WorkoutItem.imagePath AND Exercise.isImagePathExternal = WorkoutItem.isImagePathExternal " +
+                        "AND Exercise.videoPath IS WorkoutItem.videoPath AND Exercise.isVideoPathExternal = WorkoutItem.isVideoPathExternal LIMIT 1), " +
+                        "orderNr, elapsedTime, isVideoMode, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode, finished FROM WorkoutItem");
+                database.execSQL("DROP TABLE WorkoutItem");
+                database.execSQL("ALTER TABLE WorkoutItem_new RENAME TO WorkoutItem");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutItem_workoutSessionId_orderNr` ON `WorkoutItem` (`workoutSessionId`, `orderNr`)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutItem_exerciseId` ON `WorkoutItem` (`exerciseId`)");
+
+                database.setTransactionSuccessful();
+            }
+            finally {
+                database.endTransaction();
+            }
+        }
+    };
+
+    public static final Migration MIGRATION_4_5 = new TimedMigration(4, 5) {
+        @Override
+        protected void onMigrate(SupportSQLiteDatabase database) {
+            database.beginTransaction();
+            try {
+                // Workout history with its daily and weekly rollups
+                database.execSQL("CREATE TABLE IF NOT EXISTS `WorkoutLog` (`workoutLogId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `timestamp` INTEGER NOT NULL, `day` INTEGER NOT NULL, " +
+                        "`trainingPlanId` INTEGER NOT NULL, `workoutSessionId` INTEGER NOT NULL, `workoutItemId` INTEGER NOT NULL, `activeTime` INTEGER NOT NULL, `pausedTime` INTEGER NOT NULL)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutLog_day` ON `WorkoutLog` (`day`)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutLog_trainingPlanId` ON `WorkoutLog` (`trainingPlanId`)");
+                database.execSQL("CREATE TABLE IF NOT EXISTS `WorkoutLogDay` (`day` INTEGER NOT NULL, `workoutCount` INTEGER NOT NULL, `activeTime` INTEGER NOT NULL, `pausedTime` INTEGER NOT NULL, PRIMARY KEY(`day`))");
+                database.execSQL("CREATE TABLE IF NOT EXISTS `WorkoutLogWeek` (`week` INTEGER NOT NULL, `workoutCount` INTEGER NOT NULL, `activeDays` INTEGER NOT NULL, `activeTime` INTEGER NOT NULL, `pausedTime` INTEGER NOT NULL, PRIMARY KEY(`week`))");
+
+                database.setTransactionSuccessful();
+            }
+            finally {
+                database.endTransaction();
+            }
+        }
+    };
+
+    public static final Migration MIGRATION_5_6 = new TimedMigration(5, 6) {
+        @Override
+        protected void onMigrate(SupportSQLiteDatabase database) {
+            database.beginTransaction();
+            try {
+                // Move the progress of the (single) user into the sparse Progress table
+                database.execSQL("CREATE TABLE IF NOT EXISTS `Progress` (`userId` INTEGER NOT NULL, `type` INTEGER NOT NULL, `entityId` INTEGER NOT NULL, `value` INTEGER NOT NULL, PRIMARY KEY(`userId`, `type`, `entityId`))");
+                database.execSQL("INSERT INTO Progress (userId, type, entityId, value) SELECT firstUser.userId, " + Progress.TYPE_TRAINING_PLAN + ", trainingPlanId, countFinishedTraining " +
+                        "FROM TrainingPlan, (SELECT MIN(userId) AS userId FROM User) AS firstUser WHERE firstUser.userId IS NOT NULL AND countFinishedTraining > 0");
+                database.execSQL("INSERT INTO Progress (userId, type, entityId, value) SELECT firstUser.userId, " + Progress.TYPE_WORKOUT_SESSION + ", workoutSessionId, 0 " +
+                        "FROM WorkoutSession, (SELECT MIN(userId) AS userId FROM User) AS firstUser WHERE firstUser.userId IS NOT NULL AND finished = 1");
+                database.execSQL("INSERT INTO Progress (userId, type, entityId, value) SELECT firstUser.userId, " + Progress.TYPE_WORKOUT_ITEM + ", workoutItemId, elapsedTime " +
+                        "FROM WorkoutItem, (SELECT MIN(userId) AS userId FROM User) AS firstUser WHERE firstUser.userId IS NOT NULL AND finished = 1 AND workoutSessionId IS NOT NULL");
+
+                // Rebuild the definition tables without their progress columns
+                database.execSQL("CREATE TABLE TrainingPlan_new (`trainingPlanId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `orderNr` INTEGER NOT NULL, `name` TEXT, `imagePath` TEXT, `isImagePathExternal` INTEGER NOT NULL)");
+                database.execSQL("INSERT INTO TrainingPlan_new (trainingPlanId, orderNr, name, imagePath, isImagePathExternal) SELECT trainingPlanId, orderNr, name, imagePath, isImagePathExternal FROM TrainingPlan");
+                database.execSQL("DROP TABLE TrainingPlan");
+                database.execSQL("ALTER TABLE TrainingPlan_new RENAME TO TrainingPlan");
+
+                database.execSQL("CREATE TABLE WorkoutSession_new (`workoutSessionId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `trainingPlanId` INTEGER NOT NULL, `orderNr` INTEGER NOT NULL, `name` TEXT, " +
+                        "FOREIGN KEY(`trainingPlanId`) REFERENCES `TrainingPlan`(`trainingPlanId`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+                database.execSQL("INSERT INTO WorkoutSession_new (workoutSessionId, trainingPlanId, orderNr, name) SELECT workoutSessionId, trainingPlanId, orderNr, name FROM WorkoutSession");
+                database.execSQL("DROP TABLE WorkoutSession");
+                database.execSQL("ALTER TABLE WorkoutSession_new RENAME TO WorkoutSession");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutSession_trainingPlanId_orderNr` ON `WorkoutSession` (`trainingPlanId`, `orderNr`)");
+
+                database.execSQL("CREATE TABLE WorkoutItem_new (`workoutItemId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `workoutSessionId` INTEGER, `exerciseId` INTEGER NOT NULL, `orderNr` INTEGER NOT NULL, " +
+                        "`isVideoMode` INTEGER NOT NULL, `prepTime` INTEGER NOT NULL, `workoutTime` INTEGER NOT NULL, `breakTime` INTEGER NOT NULL, `repetitionCount` INTEGER NOT NULL, `isTimeMode` INTEGER NOT NULL, " +
+                        "FOREIGN KEY(`workoutSessionId`) REFERENCES `WorkoutSession`(`workoutSessionId`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                        "FOREIGN KEY(`exerciseId`) REFERENCES `Exercise`(`exerciseId`) ON UPDATE NO ACTION ON DELETE NO ACTION )");
+                database.execSQL("INSERT INTO WorkoutItem_new (workoutItemId, workoutSessionId, exerciseId, orderNr, isVideoMode, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode) " +
+                        "SELECT workoutItemId, workoutSessionId, exerciseId, orderNr, isVideoMode, prepTime, workoutTime, breakTime, repetitionCount, isTimeMode FROM WorkoutItem");
+                database.execSQL("DROP TABLE WorkoutItem");
+                database.execSQL("ALTER TABLE WorkoutItem_new RENAME TO WorkoutItem");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutItem_workoutSessionId_orderNr` ON `WorkoutItem` (`workoutSessionId`, `orderNr`)");
+                database.execSQL("CREATE INDEX IF NOT EXISTS `index_WorkoutItem_exerciseId` ON `WorkoutItem` (`exerciseId`)");
+
+                database.setTransactionSuccessful();
+            }
+            finally {
+                database.endTransaction();
+            }
+        }
+    };
+
+    public static final Migration MIGRATION_6_7 = new TimedMigration(6, 7) {
+        @Override
+        protected void onMigrate(SupportSQLiteDatabase database) {
+            database.beginTransaction();
+            try {
+                // Derived training plans reference the base plan whose workout sessions they share
+                database.execSQL("ALTER TABLE TrainingPlan ADD basePlanId INTEGER");
+
+                database.setTransactionSuccessful();
+            }
+            finally {
+                database.endTransaction();
+            }
+        }
+    };
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.health.openworkout.core.datatypes.Exercise;
+
+import java.util.List;
+
+@Dao
+public interface ExerciseDAO {
+    @Insert
+    long insert(Exercise exercise);
+
+    @Query("SELECT exerciseId FROM Exercise WHERE name IS :name AND description IS :description AND imagePath IS :imagePath AND isImagePathExternal = :isImagePathExternal " +
+            "AND videoPath IS :videoPath AND isVideoPathExternal = :isVideoPathExternal LIMIT 1")
+    Long find(String name, String description, String imagePath, boolean isImagePathExternal, String videoPath, boolean isVideoPathExternal);
+
+    @Query("DELETE FROM Exercise WHERE exerciseId NOT IN (SELECT exerciseId FROM WorkoutItem)")
+    void deleteUnused();
+
+    @Query("SELECT imagePath FROM Exercise WHERE isImagePathExternal UNION SELECT videoPath FROM Exercise WHERE isVideoPathExternal")
+    List<String> getExternalMediaPaths();
+
+    @Query("SELECT * FROM Exercise WHERE exerciseId=:exerciseId")
+    Exercise get(long exerciseId);
+
+    @Query("SELECT * FROM Exercise")
+    List<Exercise> getAll();
+
+    @Query("SELECT * FROM Exercise WHERE exerciseId IN (:exerciseIds)")
+    List<Exercise> getAll(List<Long> exerciseIds);
+
+    @Query("SELECT * FROM Exercise WHERE exerciseId IN (SELECT exerciseId FROM WorkoutItem WHERE workoutSessionId = :workoutSessionId)")
+    List<Exercise> getAllOfWorkoutSession(long workoutSessionId);
+
+    @Query("SELECT * FROM Exercise WHERE exerciseId IN (SELECT WorkoutItem.exerciseId FROM WorkoutItem INNER JOIN WorkoutSession ON WorkoutItem.workoutSessionId = WorkoutSession.workoutSessionId WHERE WorkoutSession.trainingPlanId = :trainingPlanId)")
+    List<Exercise> getAllOfTrainingPlan(long trainingPlanId);
+}
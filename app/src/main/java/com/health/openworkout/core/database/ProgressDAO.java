@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.health.openworkout.core.datatypes.Progress;
+
+import java.util.List;
+
+@Dao
+public interface ProgressDAO {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(Progress progress);
+
+    @Query("SELECT * FROM Progress WHERE userId = :userId")
+    List<Progress> getAll(long userId);
+
+    @Query("SELECT * FROM Progress WHERE userId = :userId AND type = :type AND entityId IN (:entityIds)")
+    List<Progress> getAll(long userId, int type, List<Long> entityIds);
+
+    @Query("SELECT * FROM Progress WHERE userId = :userId AND type = :type AND entityId = :entityId")
+    Progress get(long userId, int type, long entityId);
+
+    @Query("SELECT * FROM Progress WHERE userId = :userId AND (type = " + Progress.TYPE_WORKOUT_SESSION + " AND entityId IN (SELECT workoutSessionId FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId) " +
+            "OR type = " + Progress.TYPE_WORKOUT_ITEM + " AND entityId IN (SELECT workoutItemId FROM WorkoutItem WHERE workoutSessionId IN (SELECT workoutSessionId FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId)) " +
+            "OR type = " + Progress.TYPE_TRAINING_PLAN + " AND entityId = :trainingPlanId)")
+    List<Progress> getAllOfTrainingPlan(long userId, long trainingPlanId);
+
+    @Query("SELECT * FROM Progress WHERE userId = :userId AND (type = " + Progress.TYPE_WORKOUT_ITEM + " AND entityId IN (SELECT workoutItemId FROM WorkoutItem WHERE workoutSessionId = :workoutSessionId) " +
+            "OR type = " + Progress.TYPE_WORKOUT_SESSION + " AND entityId = :workoutSessionId)")
+    List<Progress> getAllOfWorkoutSession(long userId, long workoutSessionId);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertIfAbsent(Progress progress);
+
+    @Query("UPDATE Progress SET value = value + 1 WHERE userId = :userId AND type = " + Progress.TYPE_TRAINING_PLAN + " AND entityId = :trainingPlanId")
+    void incrementCountFinishedTraining(long userId, long trainingPlanId);
+
+    @Query("SELECT COUNT(*) FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId " +
+            "AND workoutSessionId NOT IN (SELECT entityId FROM Progress WHERE userId = :userId AND type = " + Progress.TYPE_WORKOUT_SESSION + ")")
+    int countUnfinishedWorkoutSessions(long userId, long trainingPlanId);
+
+    @Query("SELECT trainingPlanId FROM TrainingPlan WHERE EXISTS (SELECT 1 FROM WorkoutSession WHERE WorkoutSession.trainingPlanId = TrainingPlan.trainingPlanId) " +
+            "AND NOT EXISTS (SELECT 1 FROM WorkoutSession WHERE WorkoutSession.trainingPlanId = TrainingPlan.trainingPlanId " +
+            "AND workoutSessionId NOT IN (SELECT entityId FROM Progress WHERE userId = :userId AND type = " + Progress.TYPE_WORKOUT_SESSION + "))")
+    List<Long> getAllFinishedTrainingPlanIds(long userId);
+
+    @Query("DELETE FROM Progress WHERE userId = :userId")
+    void deleteAll(long userId);
+
+    // everything but the finished training counts
+    @Query("DELETE FROM Progress WHERE userId = :userId AND type != " + Progress.TYPE_TRAINING_PLAN)
+    void deleteAllFinished(long userId);
+
+    @Query("DELETE FROM Progress WHERE userId = :userId AND (type = " + Progress.TYPE_WORKOUT_SESSION + " AND entityId IN (SELECT workoutSessionId FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId) " +
+            "OR type = " + Progress.TYPE_WORKOUT_ITEM + " AND entityId IN (SELECT workoutItemId FROM WorkoutItem WHERE workoutSessionId IN (SELECT workoutSessionId FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId)))")
+    void deleteFinishedOfTrainingPlan(long userId, long trainingPlanId);
+
+    @Query("DELETE FROM Progress WHERE userId = :userId AND type = " + Progress.TYPE_WORKOUT_ITEM + " AND entityId IN (SELECT workoutItemId FROM WorkoutItem WHERE workoutSessionId = :workoutSessionId)")
+    void deleteFinishedOfWorkoutSession(long userId, long workoutSessionId);
+
+    // progress of deleted training plans, workout sessions and workout items
+    @Query("DELETE FROM Progress WHERE type = " + Progress.TYPE_TRAINING_PLAN + " AND entityId NOT IN (SELECT trainingPlanId FROM TrainingPlan) " +
+            "OR type = " + Progress.TYPE_WORKOUT_SESSION + " AND entityId NOT IN (SELECT workoutSessionId FROM WorkoutSession) " +
+            "OR type = " + Progress.TYPE_WORKOUT_ITEM + " AND entityId NOT IN (SELECT workoutItemId FROM WorkoutItem)")
+    void deleteOrphans();
+}
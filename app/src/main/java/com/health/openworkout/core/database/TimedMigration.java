@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.database;
+
+import android.database.Cursor;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import timber.log.Timber;
+
+/**
+ * Migration which measures its wall time, migrations rewriting big tables stall the app start on devices with a long history.
+ */
+public abstract class TimedMigration extends Migration {
+    private static final long SLOW_MIGRATION_MILLIS = 500;
+
+    public TimedMigration(int startVersion, int endVersion) {
+        super(startVersion, endVersion);
+    }
+
+    protected abstract void onMigrate(SupportSQLiteDatabase database);
+
+    @Override
+    public final void migrate(@NonNull SupportSQLiteDatabase database) {
+        long startTime = SystemClock.elapsedRealtime();
+
+        onMigrate(database);
+
+        long elapsedTime = SystemClock.elapsedRealtime() - startTime;
+        String message = "Migration " + startVersion + "->" + endVersion + " took " + elapsedTime + "ms on a database of " + getSizeInKb(database) + "kB";
+
+        if (elapsedTime > SLOW_MIGRATION_MILLIS) {
+            Timber.w(message);
+        } else {
+            Timber.d(message);
+        }
+    }
+
+    private long getSizeInKb(SupportSQLiteDatabase database) {
+        Cursor cursor = database.query("PRAGMA page_count");
+
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) * database.getPageSize() / 1024 : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -23,7 +23,9 @@ import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import com.health.openworkout.core.datatypes.Progress;
 import com.health.openworkout.core.datatypes.TrainingPlan;
+import com.health.openworkout.core.datatypes.TrainingPlanSummary;
 
 import java.util.List;
 
@@ -32,15 +34,46 @@ public interface TrainingPlanDAO {
     @Insert
     long insert(TrainingPlan trainingPlan);
 
+    @Insert
+    long[] insertAll(List<TrainingPlan> trainingPlanList);
+
     @Update
     void update(TrainingPlan trainingPlan);
 
+    @Update
+    void updateAll(List<TrainingPlan> trainingPlanList);
+
     @Delete
     void delete(TrainingPlan trainingPlan);
 
+    @Query("DELETE FROM TrainingPlan WHERE trainingPlanId = :trainingPlanId")
+    void delete(long trainingPlanId);
+
+    @Query("UPDATE TrainingPlan SET orderNr = :orderNr WHERE trainingPlanId = :trainingPlanId")
+    void updateOrderNr(long trainingPlanId, long orderNr);
+
     @Query("SELECT * FROM TrainingPlan WHERE trainingPlanId=:trainingPlanId")
     TrainingPlan get(long trainingPlanId);
 
     @Query("SELECT * FROM TrainingPlan ORDER BY orderNr")
     List<TrainingPlan> getAll();
+
+    @Query("SELECT basePlanId FROM TrainingPlan WHERE trainingPlanId = :trainingPlanId")
+    Long getBasePlanId(long trainingPlanId);
+
+    @Query("SELECT trainingPlanId FROM TrainingPlan WHERE basePlanId = :basePlanId")
+    List<Long> getDerivedPlanIds(long basePlanId);
+
+    @Query("SELECT DISTINCT imagePath FROM TrainingPlan WHERE isImagePathExternal")
+    List<String> getExternalImagePaths();
+
+    // the list columns only, the counts are computed instead of loading the sessions,
+    // a derived plan counts the sessions of its base plan and has no finished ones until it is materialized
+    @Query("SELECT trainingPlanId, orderNr, name, imagePath, isImagePathExternal, " +
+            "IFNULL((SELECT value FROM Progress WHERE userId = :userId AND type = " + Progress.TYPE_TRAINING_PLAN + " AND entityId = TrainingPlan.trainingPlanId), 0) AS countFinishedTraining, " +
+            "(SELECT COUNT(*) FROM WorkoutSession WHERE WorkoutSession.trainingPlanId = IFNULL(TrainingPlan.basePlanId, TrainingPlan.trainingPlanId)) AS workoutSessionCount, " +
+            "(SELECT COUNT(*) FROM WorkoutSession INNER JOIN Progress ON Progress.userId = :userId AND Progress.type = " + Progress.TYPE_WORKOUT_SESSION + " AND Progress.entityId = WorkoutSession.workoutSessionId " +
+            "WHERE WorkoutSession.trainingPlanId = TrainingPlan.trainingPlanId) AS finishedWorkoutSessionCount " +
+            "FROM TrainingPlan ORDER BY orderNr")
+    List<TrainingPlanSummary> getAllSummaries(long userId);
 }
@@ -23,7 +23,9 @@ import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import com.health.openworkout.core.datatypes.Progress;
 import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutItemSummary;
 
 import java.util.List;
 
@@ -33,17 +35,26 @@ public interface WorkoutItemDAO {
     long insert(WorkoutItem workoutItem);
 
     @Insert
-    void insertAll(List<WorkoutItem> workoutItemList);
+    long[] insertAll(List<WorkoutItem> workoutItemList);
 
     @Update
     void update(WorkoutItem workoutItem);
 
+    @Update
+    void updateAll(List<WorkoutItem> workoutItemList);
+
     @Delete
     void delete(WorkoutItem workoutItem);
 
+    @Query("DELETE FROM WorkoutItem WHERE workoutItemId = :workoutItemId")
+    void delete(long workoutItemId);
+
     @Query("DELETE FROM WorkoutItem")
     void clear();
 
+    @Query("UPDATE WorkoutItem SET orderNr = :orderNr WHERE workoutItemId = :workoutItemId")
+    void updateOrderNr(long workoutItemId, long orderNr);
+
     @Query("DELETE FROM WorkoutItem WHERE workoutSessionId = :workoutSessionId")
     void deleteAll(long workoutSessionId);
 
@@ -53,6 +64,24 @@ public interface WorkoutItemDAO {
     @Query("SELECT * FROM WorkoutItem WHERE workoutSessionId = :workoutSessionId ORDER BY orderNr")
     List<WorkoutItem> getAll(long workoutSessionId);
 
-    @Query("SELECT * FROM WorkoutItem GROUP BY name")
+    // keyset page after (afterOrderNr, afterWorkoutItemId), the id breaks ties between equal orderNr keys
+    @Query("SELECT WorkoutItem.workoutItemId, WorkoutItem.workoutSessionId, WorkoutItem.orderNr, Exercise.name, Exercise.imagePath, Exercise.isImagePathExternal, " +
+            "WorkoutItem.prepTime, WorkoutItem.workoutTime, WorkoutItem.breakTime, WorkoutItem.repetitionCount, WorkoutItem.isTimeMode, " +
+            "EXISTS (SELECT 1 FROM Progress WHERE userId = :userId AND type = " + Progress.TYPE_WORKOUT_ITEM + " AND entityId = WorkoutItem.workoutItemId) AS finished " +
+            "FROM WorkoutItem INNER JOIN Exercise ON Exercise.exerciseId = WorkoutItem.exerciseId WHERE WorkoutItem.workoutSessionId = :workoutSessionId " +
+            "AND (WorkoutItem.orderNr > :afterOrderNr OR (WorkoutItem.orderNr = :afterOrderNr AND WorkoutItem.workoutItemId > :afterWorkoutItemId)) " +
+            "ORDER BY WorkoutItem.orderNr, WorkoutItem.workoutItemId LIMIT :limit")
+    List<WorkoutItemSummary> getSummaryPage(long userId, long workoutSessionId, long afterOrderNr, long afterWorkoutItemId, int limit);
+
+    @Query("SELECT WorkoutItem.* FROM WorkoutItem INNER JOIN WorkoutSession ON WorkoutItem.workoutSessionId = WorkoutSession.workoutSessionId WHERE WorkoutSession.trainingPlanId = :trainingPlanId ORDER BY WorkoutItem.orderNr")
+    List<WorkoutItem> getAllOfTrainingPlan(long trainingPlanId);
+
+    @Query("SELECT WorkoutItem.* FROM WorkoutItem INNER JOIN WorkoutSession ON WorkoutItem.workoutSessionId = WorkoutSession.workoutSessionId ORDER BY WorkoutItem.orderNr")
+    List<WorkoutItem> getAllOfTrainingPlans();
+
+    // one workout item per exercise name like before the exercises were split off, copies of an exercise share its name
+    @Query("SELECT WorkoutItem.* FROM WorkoutItem INNER JOIN Exercise ON Exercise.exerciseId = WorkoutItem.exerciseId " +
+            "WHERE WorkoutItem.workoutItemId IN (SELECT MIN(WorkoutItem.workoutItemId) FROM WorkoutItem INNER JOIN Exercise ON Exercise.exerciseId = WorkoutItem.exerciseId GROUP BY Exercise.name) " +
+            "ORDER BY Exercise.name")
     List<WorkoutItem> getAllUnique();
 }
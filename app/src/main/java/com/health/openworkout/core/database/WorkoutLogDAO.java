@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.health.openworkout.core.datatypes.WorkoutLog;
+import com.health.openworkout.core.datatypes.WorkoutLogDay;
+import com.health.openworkout.core.datatypes.WorkoutLogWeek;
+
+import java.util.List;
+
+@Dao
+public interface WorkoutLogDAO {
+    @Insert
+    long insert(WorkoutLog workoutLog);
+
+    // rollup rows are created on demand, returns -1 if the row already exists
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertDayIfAbsent(WorkoutLogDay workoutLogDay);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertWeekIfAbsent(WorkoutLogWeek workoutLogWeek);
+
+    @Query("UPDATE WorkoutLogDay SET workoutCount = workoutCount + 1, activeTime = activeTime + :activeTime, pausedTime = pausedTime + :pausedTime WHERE day = :day")
+    void addToDay(long day, long activeTime, long pausedTime);
+
+    @Query("UPDATE WorkoutLogWeek SET workoutCount = workoutCount + 1, activeDays = activeDays + :newDays, activeTime = activeTime + :activeTime, pausedTime = pausedTime + :pausedTime WHERE week = :week")
+    void addToWeek(long week, int newDays, long activeTime, long pausedTime);
+
+    @Query("SELECT * FROM WorkoutLog WHERE day BETWEEN :fromDay AND :toDay ORDER BY timestamp")
+    List<WorkoutLog> getAll(long fromDay, long toDay);
+
+    @Query("SELECT * FROM WorkoutLogDay WHERE day BETWEEN :fromDay AND :toDay ORDER BY day")
+    List<WorkoutLogDay> getDays(long fromDay, long toDay);
+
+    @Query("SELECT * FROM WorkoutLogWeek WHERE week BETWEEN :fromWeek AND :toWeek ORDER BY week")
+    List<WorkoutLogWeek> getWeeks(long fromWeek, long toWeek);
+
+    @Query("SELECT day FROM WorkoutLogDay WHERE day <= :toDay ORDER BY day DESC")
+    List<Long> getActiveDaysDescending(long toDay);
+}
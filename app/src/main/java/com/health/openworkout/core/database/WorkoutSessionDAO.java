@@ -23,7 +23,10 @@ import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import com.health.openworkout.core.SessionTimeline;
+import com.health.openworkout.core.datatypes.Progress;
 import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.datatypes.WorkoutSessionSummary;
 
 import java.util.List;
 
@@ -32,18 +35,54 @@ public interface WorkoutSessionDAO {
     @Insert
     long insert(WorkoutSession workoutSession);
 
+    @Insert
+    long[] insertAll(List<WorkoutSession> workoutSessionList);
+
     @Update
     void update(WorkoutSession workoutSession);
 
+    @Update
+    void updateAll(List<WorkoutSession> workoutSessionList);
+
     @Delete
     void delete(WorkoutSession workoutSession);
 
+    @Query("DELETE FROM WorkoutSession WHERE workoutSessionId = :workoutSessionId")
+    void delete(long workoutSessionId);
+
     @Query("DELETE FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId")
     void deleteAll(long trainingPlanId);
 
+    @Query("UPDATE WorkoutSession SET orderNr = :orderNr WHERE workoutSessionId = :workoutSessionId")
+    void updateOrderNr(long workoutSessionId, long orderNr);
+
     @Query("SELECT * FROM WorkoutSession WHERE workoutSessionId=:workoutSessionId")
     WorkoutSession get(long workoutSessionId);
 
     @Query("SELECT * FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId ORDER BY orderNr")
     List<WorkoutSession> getAll(long trainingPlanId);
+
+    @Query("SELECT workoutSessionId FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId ORDER BY orderNr, workoutSessionId")
+    List<Long> getIds(long trainingPlanId);
+
+    @Query("SELECT * FROM WorkoutSession ORDER BY orderNr")
+    List<WorkoutSession> getAll();
+
+    // keyset page after (afterOrderNr, afterWorkoutSessionId), the id breaks ties between equal orderNr keys,
+    // the duration is estimated like the SessionTimeline does it, without the break after the last workout item
+    @Query("SELECT workoutSessionId, trainingPlanId, orderNr, name, " +
+            "EXISTS (SELECT 1 FROM Progress WHERE userId = :userId AND type = " + Progress.TYPE_WORKOUT_SESSION + " AND entityId = WorkoutSession.workoutSessionId) AS finished, " +
+            "(SELECT COALESCE(SUM(prepTime + CASE WHEN isTimeMode THEN workoutTime ELSE repetitionCount * " + SessionTimeline.SEC_PER_REPETITION + " END + breakTime), 0) " +
+            "FROM WorkoutItem WHERE workoutSessionId = WorkoutSession.workoutSessionId) - " +
+            "COALESCE((SELECT breakTime FROM WorkoutItem WHERE workoutSessionId = WorkoutSession.workoutSessionId ORDER BY orderNr DESC LIMIT 1), 0) AS duration " +
+            "FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId " +
+            "AND (orderNr > :afterOrderNr OR (orderNr = :afterOrderNr AND workoutSessionId > :afterWorkoutSessionId)) " +
+            "ORDER BY orderNr, workoutSessionId LIMIT :limit")
+    List<WorkoutSessionSummary> getSummaryPage(long userId, long trainingPlanId, long afterOrderNr, long afterWorkoutSessionId, int limit);
+
+    @Query("SELECT COUNT(*) FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId")
+    int count(long trainingPlanId);
+
+    @Query("SELECT MAX(orderNr) FROM WorkoutSession WHERE trainingPlanId = :trainingPlanId")
+    Long getMaxOrderNr(long trainingPlanId);
 }
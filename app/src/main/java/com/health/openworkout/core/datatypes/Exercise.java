@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Objects;
+
+/**
+ * Static metadata of a workout, shared by all workout items which show the same exercise.
+ * Exercises are deduplicated by their content, so editing a workout item creates a new exercise instead of changing the others.
+ */
+@Keep
+@Entity(indices = {@Index("name")})
+public class Exercise {
+    @PrimaryKey(autoGenerate = true)
+    private long exerciseId;
+
+    @ColumnInfo
+    private String name;
+    @ColumnInfo
+    private String description;
+    @ColumnInfo
+    private String imagePath;
+    @ColumnInfo
+    private boolean isImagePathExternal;
+    @ColumnInfo
+    private String videoPath;
+    @ColumnInfo
+    private boolean isVideoPathExternal;
+
+    public long getExerciseId() {
+        return exerciseId;
+    }
+
+    public void setExerciseId(long exerciseId) {
+        this.exerciseId = exerciseId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public boolean isImagePathExternal() {
+        return isImagePathExternal;
+    }
+
+    public void setImagePathExternal(boolean imagePathExternal) {
+        isImagePathExternal = imagePathExternal;
+    }
+
+    public String getVideoPath() {
+        return videoPath;
+    }
+
+    public void setVideoPath(String videoPath) {
+        this.videoPath = videoPath;
+    }
+
+    public boolean isVideoPathExternal() {
+        return isVideoPathExternal;
+    }
+
+    public void setVideoPathExternal(boolean videoPathExternal) {
+        isVideoPathExternal = videoPathExternal;
+    }
+
+    // the id is left out, two exercises are equal if they show the same content
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Exercise that = (Exercise) o;
+
+        return isImagePathExternal == that.isImagePathExternal &&
+                isVideoPathExternal == that.isVideoPathExternal &&
+                Objects.equals(name, that.name) &&
+                Objects.equals(description, that.description) &&
+                Objects.equals(imagePath, that.imagePath) &&
+                Objects.equals(videoPath, that.videoPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, description, imagePath, isImagePathExternal, videoPath, isVideoPathExternal);
+    }
+}
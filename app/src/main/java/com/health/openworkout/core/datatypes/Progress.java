@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+/**
+ * Sparse progress of a user, kept apart from the training plan definitions.
+ * A row of a workout session or workout item marks it as finished, resetting the progress deletes the rows.
+ * The value is the elapsed time in sec for workout items and the finished training count for training plans.
+ */
+@Keep
+@Entity(primaryKeys = {"userId", "type", "entityId"})
+public class Progress {
+    public static final int TYPE_TRAINING_PLAN = 0;
+    public static final int TYPE_WORKOUT_SESSION = 1;
+    public static final int TYPE_WORKOUT_ITEM = 2;
+
+    @ColumnInfo
+    private long userId;
+    @ColumnInfo
+    private int type;
+    @ColumnInfo
+    private long entityId;
+    @ColumnInfo
+    private long value;
+
+    public Progress() {
+    }
+
+    @Ignore
+    public Progress(long userId, int type, long entityId, long value) {
+        this.userId = userId;
+        this.type = type;
+        this.entityId = entityId;
+        this.value = value;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public void setType(int type) {
+        this.type = type;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(long entityId) {
+        this.entityId = entityId;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+}
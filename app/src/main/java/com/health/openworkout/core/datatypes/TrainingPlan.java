@@ -25,7 +25,6 @@ import androidx.room.Entity;
 import androidx.room.Ignore;
 import androidx.room.PrimaryKey;
 
-import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
 
 import java.util.ArrayList;
@@ -33,7 +32,7 @@ import java.util.List;
 
 @Keep
 @Entity
-public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable {
+public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable, Orderable {
     @PrimaryKey(autoGenerate = true)
     private long trainingPlanId;
 
@@ -46,70 +45,125 @@ public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable {
     @ColumnInfo
     private boolean isImagePathExternal;
     @ColumnInfo
-    private int countFinishedTraining;
+    private transient Long basePlanId; // set while a derived plan still shares the workout sessions of its base plan
+    // progress of the current user, stored in the Progress table
     @Ignore
-    private List<WorkoutSession> workoutSessions;
+    private int countFinishedTraining;
     @Ignore
-    private transient final Context context;
+    private List<WorkoutSession> workoutSessions; // null until fetched
 
+    // used by Room and Gson too, so no resource lookups here, the add screen sets the placeholder name
     public TrainingPlan() {
-        context = OpenWorkout.getInstance().getContext();
-
         orderNr = -1L;
         countFinishedTraining = 0;
         workoutSessions = new ArrayList<>();
         isImagePathExternal = false;
-        name = "<" + context.getString(R.string.label_new_training_plan) + ">";
         imagePath = "defaultTraining.png";
     }
 
+    /**
+     * Copy as a new training plan, the copies of its sessions and items have no ids yet.
+     */
     @Override
     public TrainingPlan clone() {
-        TrainingPlan clone;
-        try {
-            clone = (TrainingPlan) super.clone();
-        }
-        catch (CloneNotSupportedException e) {
-            throw new RuntimeException("failed to clone TrainingPlan", e);
-        }
+        TrainingPlan clone = shallowCopy();
 
-        for (WorkoutSession workoutSession : clone.workoutSessions) {
-            workoutSession.setWorkoutSessionId(0);
+        // the copy owns its sessions and items, so inserting it never touches the original (or cached) objects
+        if (workoutSessions != null) {
+            List<WorkoutSession> workoutSessionList = new ArrayList<>(workoutSessions.size());
 
-            for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                workoutItem.setWorkoutItemId(0);
+            for (WorkoutSession workoutSession : workoutSessions) {
+                WorkoutSession workoutSessionClone = workoutSession.clone();
+                workoutSessionClone.setWorkoutSessionId(0);
+                workoutSessionList.add(workoutSessionClone);
             }
+
+            clone.setWorkoutSessions(workoutSessionList);
         }
 
+        clone.basePlanId = null;
+
         return clone;
     }
 
+    /**
+     * The loaded training plans are shared snapshots of the cache (see {@link OpenWorkout}), an editor changes
+     * this copy instead, it keeps all ids and owns its sessions and items.
+     */
+    public TrainingPlan copy() {
+        TrainingPlan copy = shallowCopy();
+
+        if (workoutSessions != null) {
+            List<WorkoutSession> workoutSessionList = new ArrayList<>(workoutSessions.size());
+
+            for (WorkoutSession workoutSession : workoutSessions) {
+                workoutSessionList.add(workoutSession.copy());
+            }
+
+            copy.setWorkoutSessions(workoutSessionList);
+        }
+
+        return copy;
+    }
+
+    // copy which shares the given workout sessions, the other fields are copied
+    public TrainingPlan withWorkoutSessions(List<WorkoutSession> workoutSessions) {
+        TrainingPlan copy = shallowCopy();
+        copy.setWorkoutSessions(workoutSessions);
+
+        return copy;
+    }
+
+    private TrainingPlan shallowCopy() {
+        try {
+            return (TrainingPlan) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("failed to clone TrainingPlan", e);
+        }
+    }
+
+    @Override
     public long getOrderNr() {
         return orderNr;
     }
 
+    @Override
     public void setOrderNr(long orderNr) {
         this.orderNr = orderNr;
     }
 
     public Context getContext() {
-        return context;
+        return OpenWorkout.getInstance().getContext();
     }
 
     public void addWorkoutSession(WorkoutSession workoutSession) {
-        workoutSessions.add(workoutSession);
+        getWorkoutSessions().add(workoutSession);
     }
 
+    // null marks the workout sessions as not fetched yet
     public void setWorkoutSessions(List<WorkoutSession> workoutSessions) {
         this.workoutSessions = workoutSessions;
     }
 
+    public boolean isWorkoutSessionsFetched() {
+        return workoutSessions != null;
+    }
+
+    /**
+     * The workout sessions are only there if the training plan was loaded with {@link OpenWorkout.PREFETCH#WORKOUT_SESSIONS}
+     * or deeper, they are never fetched behind the caller's back since that would query the database on the calling thread.
+     */
     public List<WorkoutSession> getWorkoutSessions() {
+        if (workoutSessions == null) {
+            throw new IllegalStateException("Workout sessions of training plan " + trainingPlanId + " aren't loaded, load it with PREFETCH.WORKOUT_SESSIONS or deeper");
+        }
+
         return workoutSessions;
     }
 
     public WorkoutSession getNextWorkoutSession() {
-        for (WorkoutSession workoutSession : workoutSessions) {
+        for (WorkoutSession workoutSession : getWorkoutSessions()) {
             if (!workoutSession.isFinished()) {
                 return workoutSession;
             }
@@ -121,7 +175,7 @@ public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable {
     public int finishedSessionSize() {
         int finishedSize = 0;
 
-        for (WorkoutSession workoutSession : workoutSessions) {
+        for (WorkoutSession workoutSession : getWorkoutSessions()) {
             if (workoutSession.isFinished()) {
                 finishedSize++;
             }
@@ -131,7 +185,7 @@ public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable {
     }
 
     public int getWorkoutSessionSize() {
-        return workoutSessions.size();
+        return getWorkoutSessions().size();
     }
 
     public void setTrainingPlanId(long trainingPlanId) {
@@ -142,6 +196,14 @@ public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable {
         return trainingPlanId;
     }
 
+    public Long getBasePlanId() {
+        return basePlanId;
+    }
+
+    public void setBasePlanId(Long basePlanId) {
+        this.basePlanId = basePlanId;
+    }
+
     public String getName() {
         return name;
     }
@@ -182,9 +244,9 @@ public class TrainingPlan implements Comparable<TrainingPlan>, Cloneable {
     @Override
     public int compareTo(TrainingPlan o) {
         if (this.orderNr == -1L || o.orderNr == -1L) {
-            return (int)(this.trainingPlanId - o.trainingPlanId);
+            return Long.compare(this.trainingPlanId, o.trainingPlanId);
         }
 
-        return (int)(this.orderNr - o.orderNr);
+        return Long.compare(this.orderNr, o.orderNr);
     }
 }
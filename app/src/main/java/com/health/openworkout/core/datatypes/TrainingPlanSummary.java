@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+
+/**
+ * Projection of a training plan for the training plan list, the session counts are computed by the query.
+ */
+@Keep
+public class TrainingPlanSummary implements Cloneable, Orderable {
+    private long trainingPlanId;
+    private long orderNr;
+    private String name;
+    private String imagePath;
+    private boolean isImagePathExternal;
+    private int countFinishedTraining;
+    private int workoutSessionCount;
+    private int finishedWorkoutSessionCount;
+
+    @Override
+    public TrainingPlanSummary clone() {
+        try {
+            return (TrainingPlanSummary) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("failed to clone TrainingPlanSummary", e);
+        }
+    }
+
+    public long getTrainingPlanId() {
+        return trainingPlanId;
+    }
+
+    public void setTrainingPlanId(long trainingPlanId) {
+        this.trainingPlanId = trainingPlanId;
+    }
+
+    @Override
+    public long getOrderNr() {
+        return orderNr;
+    }
+
+    @Override
+    public void setOrderNr(long orderNr) {
+        this.orderNr = orderNr;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public boolean isImagePathExternal() {
+        return isImagePathExternal;
+    }
+
+    public void setImagePathExternal(boolean imagePathExternal) {
+        isImagePathExternal = imagePathExternal;
+    }
+
+    public int getCountFinishedTraining() {
+        return countFinishedTraining;
+    }
+
+    public void setCountFinishedTraining(int countFinishedTraining) {
+        this.countFinishedTraining = countFinishedTraining;
+    }
+
+    public int getWorkoutSessionCount() {
+        return workoutSessionCount;
+    }
+
+    public void setWorkoutSessionCount(int workoutSessionCount) {
+        this.workoutSessionCount = workoutSessionCount;
+    }
+
+    public int getFinishedWorkoutSessionCount() {
+        return finishedWorkoutSessionCount;
+    }
+
+    public void setFinishedWorkoutSessionCount(int finishedWorkoutSessionCount) {
+        this.finishedWorkoutSessionCount = finishedWorkoutSessionCount;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
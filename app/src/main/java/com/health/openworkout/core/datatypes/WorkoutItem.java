@@ -22,39 +22,35 @@ import android.content.Context;
 import androidx.annotation.Keep;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
 
 @Keep
-@Entity
-public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable {
+@Entity(foreignKeys = {@ForeignKey(entity = WorkoutSession.class,
+                                   parentColumns = "workoutSessionId",
+                                   childColumns = "workoutSessionId",
+                                   onDelete = ForeignKey.CASCADE),
+                       @ForeignKey(entity = Exercise.class,
+                                   parentColumns = "exerciseId",
+                                   childColumns = "exerciseId")},
+        indices = {@Index({"workoutSessionId", "orderNr"}), @Index("exerciseId")})
+public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable, Orderable {
     @PrimaryKey(autoGenerate = true)
     private long workoutItemId;
 
     @ColumnInfo
-    private long workoutSessionId;
+    private Long workoutSessionId; // null for items of the workout database
     @ColumnInfo
-    private long orderNr;
-    @ColumnInfo
-    private String name;
+    private long exerciseId;
     @ColumnInfo
-    private String description;
-    @ColumnInfo
-    private long elapsedTime; // in sec
-    @ColumnInfo
-    private String imagePath;
-    @ColumnInfo
-    private boolean isImagePathExternal;
+    private long orderNr;
     @ColumnInfo
     private boolean isVideoMode;
     @ColumnInfo
-    private String videoPath;
-    @ColumnInfo
-    private boolean isVideoPathExternal;
-    @ColumnInfo
     private int prepTime; // in sec
     @ColumnInfo
     private int workoutTime; // in sec
@@ -64,16 +60,29 @@ public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable {
     private int repetitionCount;
     @ColumnInfo
     private boolean isTimeMode;
-    @ColumnInfo
+
+    // progress of the current user, stored in the Progress table
+    @Ignore
+    private long elapsedTime; // in sec
+    @Ignore
     private boolean finished;
 
+    // exercise metadata, stored in the Exercise table and kept inline for the export format
+    @Ignore
+    private String name;
+    @Ignore
+    private String description;
     @Ignore
-    private transient final Context context;
+    private String imagePath;
+    @Ignore
+    private boolean isImagePathExternal;
+    @Ignore
+    private String videoPath;
+    @Ignore
+    private boolean isVideoPathExternal;
 
+    // used by Room and Gson too, so no resource lookups here, the add screen sets the placeholder name
     public WorkoutItem() {
-        context = OpenWorkout.getInstance().getContext();
-        name = "<" + context.getString(R.string.label_new_workout_item) + ">";
-        description = "<" + context.getString(R.string.label_new_workout_item) + ">";
         orderNr = -1L;
         prepTime = 5;
         workoutTime = 30;
@@ -102,7 +111,7 @@ public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable {
     }
 
     public final Context getContext() {
-        return context;
+        return OpenWorkout.getInstance().getContext();
     }
 
     public void setWorkoutItemId(long workoutItemId) {
@@ -113,18 +122,51 @@ public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable {
         return workoutItemId;
     }
 
-    public void setWorkoutSessionId(long workoutSessionId) {
+    public void setWorkoutSessionId(Long workoutSessionId) {
         this.workoutSessionId = workoutSessionId;
     }
 
-    public long getWorkoutSessionId() {
+    public Long getWorkoutSessionId() {
         return workoutSessionId;
     }
 
+    public long getExerciseId() {
+        return exerciseId;
+    }
+
+    public void setExerciseId(long exerciseId) {
+        this.exerciseId = exerciseId;
+    }
+
+    public Exercise getExercise() {
+        Exercise exercise = new Exercise();
+        exercise.setExerciseId(exerciseId);
+        exercise.setName(name);
+        exercise.setDescription(description);
+        exercise.setImagePath(imagePath);
+        exercise.setImagePathExternal(isImagePathExternal);
+        exercise.setVideoPath(videoPath);
+        exercise.setVideoPathExternal(isVideoPathExternal);
+
+        return exercise;
+    }
+
+    public void setExercise(Exercise exercise) {
+        exerciseId = exercise.getExerciseId();
+        name = exercise.getName();
+        description = exercise.getDescription();
+        imagePath = exercise.getImagePath();
+        isImagePathExternal = exercise.isImagePathExternal();
+        videoPath = exercise.getVideoPath();
+        isVideoPathExternal = exercise.isVideoPathExternal();
+    }
+
+    @Override
     public long getOrderNr() {
         return orderNr;
     }
 
+    @Override
     public void setOrderNr(long orderNr) {
         this.orderNr = orderNr;
     }
@@ -162,7 +204,7 @@ public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable {
     }
 
     public void setImagePath(int resId) {
-        imagePath = context.getResources().getResourceEntryName(resId);
+        imagePath = getContext().getResources().getResourceEntryName(resId);
     }
 
     public boolean isImagePathExternal() {
@@ -252,9 +294,9 @@ public class WorkoutItem implements Comparable<WorkoutItem>, Cloneable {
     @Override
     public int compareTo(WorkoutItem o) {
         if (this.orderNr == -1L || o.orderNr == -1L) {
-            return (int)(this.workoutItemId - o.workoutItemId);
+            return Long.compare(this.workoutItemId, o.workoutItemId);
         }
 
-        return (int)(this.orderNr - o.orderNr);
+        return Long.compare(this.orderNr, o.orderNr);
     }
 }
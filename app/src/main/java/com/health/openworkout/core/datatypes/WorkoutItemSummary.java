@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+
+/**
+ * Projection of a workout item for the workout list, without the description and video of its exercise.
+ * The finished state is computed by the query.
+ */
+@Keep
+public class WorkoutItemSummary implements Cloneable, Orderable {
+    private long workoutItemId;
+    private long workoutSessionId;
+    private long orderNr;
+    private String name;
+    private String imagePath;
+    private boolean isImagePathExternal;
+    private int prepTime; // in sec
+    private int workoutTime; // in sec
+    private int breakTime; // in sec
+    private int repetitionCount;
+    private boolean isTimeMode;
+    private boolean finished;
+
+    @Override
+    public WorkoutItemSummary clone() {
+        try {
+            return (WorkoutItemSummary) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("failed to clone WorkoutItemSummary", e);
+        }
+    }
+
+    public long getWorkoutItemId() {
+        return workoutItemId;
+    }
+
+    public void setWorkoutItemId(long workoutItemId) {
+        this.workoutItemId = workoutItemId;
+    }
+
+    public long getWorkoutSessionId() {
+        return workoutSessionId;
+    }
+
+    public void setWorkoutSessionId(long workoutSessionId) {
+        this.workoutSessionId = workoutSessionId;
+    }
+
+    @Override
+    public long getOrderNr() {
+        return orderNr;
+    }
+
+    @Override
+    public void setOrderNr(long orderNr) {
+        this.orderNr = orderNr;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public boolean isImagePathExternal() {
+        return isImagePathExternal;
+    }
+
+    public void setImagePathExternal(boolean imagePathExternal) {
+        isImagePathExternal = imagePathExternal;
+    }
+
+    public int getPrepTime() {
+        return prepTime;
+    }
+
+    public void setPrepTime(int prepTime) {
+        this.prepTime = prepTime;
+    }
+
+    public int getWorkoutTime() {
+        return workoutTime;
+    }
+
+    public void setWorkoutTime(int workoutTime) {
+        this.workoutTime = workoutTime;
+    }
+
+    public int getBreakTime() {
+        return breakTime;
+    }
+
+    public void setBreakTime(int breakTime) {
+        this.breakTime = breakTime;
+    }
+
+    public int getRepetitionCount() {
+        return repetitionCount;
+    }
+
+    public void setRepetitionCount(int repetitionCount) {
+        this.repetitionCount = repetitionCount;
+    }
+
+    public boolean isTimeMode() {
+        return isTimeMode;
+    }
+
+    public void setTimeMode(boolean timeMode) {
+        isTimeMode = timeMode;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
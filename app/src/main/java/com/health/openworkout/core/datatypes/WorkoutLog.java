@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.TimeZone;
+
+/**
+ * Append-only history entry of a completed workout item.
+ * The ids are not foreign keys, so the history is kept if the training plan is deleted later on.
+ */
+@Keep
+@Entity(indices = {@Index("day"), @Index("trainingPlanId")})
+public class WorkoutLog {
+    private static final long DAY_IN_MILLIS = 24L * 60L * 60L * 1000L;
+
+    @PrimaryKey(autoGenerate = true)
+    private long workoutLogId;
+    @ColumnInfo
+    private long timestamp;
+    @ColumnInfo
+    private long day;
+    @ColumnInfo
+    private long trainingPlanId;
+    @ColumnInfo
+    private long workoutSessionId;
+    @ColumnInfo
+    private long workoutItemId;
+    @ColumnInfo
+    private long activeTime;
+    @ColumnInfo
+    private long pausedTime;
+
+    public long getWorkoutLogId() {
+        return workoutLogId;
+    }
+
+    public void setWorkoutLogId(long workoutLogId) {
+        this.workoutLogId = workoutLogId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+        this.day = toDay(timestamp);
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public long getWeek() {
+        return toWeek(day);
+    }
+
+    public long getTrainingPlanId() {
+        return trainingPlanId;
+    }
+
+    public void setTrainingPlanId(long trainingPlanId) {
+        this.trainingPlanId = trainingPlanId;
+    }
+
+    public long getWorkoutSessionId() {
+        return workoutSessionId;
+    }
+
+    public void setWorkoutSessionId(long workoutSessionId) {
+        this.workoutSessionId = workoutSessionId;
+    }
+
+    public long getWorkoutItemId() {
+        return workoutItemId;
+    }
+
+    public void setWorkoutItemId(long workoutItemId) {
+        this.workoutItemId = workoutItemId;
+    }
+
+    public long getActiveTime() {
+        return activeTime;
+    }
+
+    public void setActiveTime(long activeTime) {
+        this.activeTime = activeTime;
+    }
+
+    public long getPausedTime() {
+        return pausedTime;
+    }
+
+    public void setPausedTime(long pausedTime) {
+        this.pausedTime = pausedTime;
+    }
+
+    // days since 1970-01-01 in the local time zone
+    public static long toDay(long timestamp) {
+        return (timestamp + TimeZone.getDefault().getOffset(timestamp)) / DAY_IN_MILLIS;
+    }
+
+    // first day (monday) of the week of the given day, 1970-01-01 was a thursday
+    public static long toWeek(long day) {
+        return day - (day + 3) % 7;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Weekly rollup of the workout log, keyed by the first day (monday) of the week.
+ * Updated incrementally whenever a workout log entry is inserted.
+ */
+@Keep
+@Entity
+public class WorkoutLogWeek {
+    @PrimaryKey
+    private long week;
+    @ColumnInfo
+    private int workoutCount;
+    @ColumnInfo
+    private int activeDays;
+    @ColumnInfo
+    private long activeTime;
+    @ColumnInfo
+    private long pausedTime;
+
+    public WorkoutLogWeek() {
+    }
+
+    @Ignore
+    public WorkoutLogWeek(long week) {
+        this.week = week;
+    }
+
+    public long getWeek() {
+        return week;
+    }
+
+    public void setWeek(long week) {
+        this.week = week;
+    }
+
+    public int getWorkoutCount() {
+        return workoutCount;
+    }
+
+    public void setWorkoutCount(int workoutCount) {
+        this.workoutCount = workoutCount;
+    }
+
+    public int getActiveDays() {
+        return activeDays;
+    }
+
+    public void setActiveDays(int activeDays) {
+        this.activeDays = activeDays;
+    }
+
+    public long getActiveTime() {
+        return activeTime;
+    }
+
+    public void setActiveTime(long activeTime) {
+        this.activeTime = activeTime;
+    }
+
+    public long getPausedTime() {
+        return pausedTime;
+    }
+
+    public void setPausedTime(long pausedTime) {
+        this.pausedTime = pausedTime;
+    }
+}
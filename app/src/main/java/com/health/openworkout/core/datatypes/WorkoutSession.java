@@ -20,15 +20,23 @@ package com.health.openworkout.core.datatypes;
 import androidx.annotation.Keep;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.health.openworkout.core.OpenWorkout;
+
 import java.util.ArrayList;
 import java.util.List;
 
 @Keep
-@Entity
-public class WorkoutSession implements Comparable<WorkoutSession>, Cloneable {
+@Entity(foreignKeys = @ForeignKey(entity = TrainingPlan.class,
+                                  parentColumns = "trainingPlanId",
+                                  childColumns = "trainingPlanId",
+                                  onDelete = ForeignKey.CASCADE),
+        indices = {@Index({"trainingPlanId", "orderNr"})})
+public class WorkoutSession implements Comparable<WorkoutSession>, Cloneable, Orderable {
     @PrimaryKey(autoGenerate = true)
     private long workoutSessionId;
 
@@ -38,10 +46,11 @@ public class WorkoutSession implements Comparable<WorkoutSession>, Cloneable {
     private long orderNr;
     @ColumnInfo
     public String name;
-    @ColumnInfo
+    // progress of the current user, stored in the Progress table
+    @Ignore
     private boolean finished;
     @Ignore
-    private List<WorkoutItem> workoutItems;
+    private List<WorkoutItem> workoutItems; // null until fetched
 
     public WorkoutSession() {
         orderNr = -1L;
@@ -49,21 +58,63 @@ public class WorkoutSession implements Comparable<WorkoutSession>, Cloneable {
         finished = false;
     }
 
+    /**
+     * Copy as a new workout session, the copies of its items have no ids yet.
+     */
     @Override
     public WorkoutSession clone() {
-        WorkoutSession clone;
+        WorkoutSession clone = shallowCopy();
+
+        if (workoutItems != null) {
+            List<WorkoutItem> workoutItemList = new ArrayList<>(workoutItems.size());
+
+            for (WorkoutItem workoutItem : workoutItems) {
+                WorkoutItem workoutItemClone = workoutItem.clone();
+                workoutItemClone.setWorkoutItemId(0);
+                workoutItemList.add(workoutItemClone);
+            }
+
+            clone.setWorkoutItems(workoutItemList);
+        }
+
+        return clone;
+    }
+
+    /**
+     * The loaded workout sessions are shared snapshots of the cache (see {@link OpenWorkout}), an editor changes
+     * this copy instead, it keeps all ids and owns its items.
+     */
+    public WorkoutSession copy() {
+        WorkoutSession copy = shallowCopy();
+
+        if (workoutItems != null) {
+            List<WorkoutItem> workoutItemList = new ArrayList<>(workoutItems.size());
+
+            for (WorkoutItem workoutItem : workoutItems) {
+                workoutItemList.add(workoutItem.clone());
+            }
+
+            copy.setWorkoutItems(workoutItemList);
+        }
+
+        return copy;
+    }
+
+    // copy which shares the given workout items, the other fields are copied
+    public WorkoutSession withWorkoutItems(List<WorkoutItem> workoutItems) {
+        WorkoutSession copy = shallowCopy();
+        copy.setWorkoutItems(workoutItems);
+
+        return copy;
+    }
+
+    private WorkoutSession shallowCopy() {
         try {
-            clone = (WorkoutSession) super.clone();
+            return (WorkoutSession) super.clone();
         }
         catch (CloneNotSupportedException e) {
             throw new RuntimeException("failed to clone WorkoutSession", e);
         }
-
-        for (WorkoutItem workoutItem : clone.workoutItems) {
-            workoutItem.setWorkoutItemId(0);
-        }
-
-        return clone;
     }
 
     public void setWorkoutSessionId(long workoutSessionId) {
@@ -82,48 +133,47 @@ public class WorkoutSession implements Comparable<WorkoutSession>, Cloneable {
         return trainingPlanId;
     }
 
+    @Override
     public long getOrderNr() {
         return orderNr;
     }
 
+    @Override
     public void setOrderNr(long orderNr) {
         this.orderNr = orderNr;
     }
 
     public WorkoutItem addWorkout(WorkoutItem workoutItem) {
-        workoutItems.add(workoutItem);
+        getWorkoutItems().add(workoutItem);
 
         return workoutItem;
     }
 
+    // null marks the workout items as not fetched yet
     public void setWorkoutItems(List<WorkoutItem> workoutItems) {
         this.workoutItems = workoutItems;
     }
 
-    public List<WorkoutItem> getWorkoutItems() {
-        return workoutItems;
+    public boolean isWorkoutItemsFetched() {
+        return workoutItems != null;
     }
 
-    public WorkoutItem getNextWorkoutItem(long workoutItemOrderNr) {
-        // Run two iterations. In the first one check only future workoutItems. In the second one, check also workoutItems at the beginning.
-        for (WorkoutItem workoutItem : workoutItems) {
-            if (!workoutItem.isFinished() && workoutItem.getOrderNr() >= workoutItemOrderNr) {
-                return workoutItem;
-            }
-        }
-        for (WorkoutItem workoutItem : workoutItems) {
-            if (!workoutItem.isFinished()) {
-                return workoutItem;
-            }
+    /**
+     * The workout items are only there if the workout session was loaded with its items (see {@link OpenWorkout.PREFETCH}),
+     * they are never fetched behind the caller's back since that would query the database on the calling thread.
+     */
+    public List<WorkoutItem> getWorkoutItems() {
+        if (workoutItems == null) {
+            throw new IllegalStateException("Workout items of workout session " + workoutSessionId + " aren't loaded, load it with a PREFETCH other than NONE");
         }
 
-        return null;
+        return workoutItems;
     }
 
     public long getElapsedSessionTime() {
         long elapsedSessionTime = 0;
 
-        for (WorkoutItem workoutItem : workoutItems) {
+        for (WorkoutItem workoutItem : getWorkoutItems()) {
             elapsedSessionTime += workoutItem.getElapsedTime();
         }
 
@@ -149,9 +199,9 @@ public class WorkoutSession implements Comparable<WorkoutSession>, Cloneable {
     @Override
     public int compareTo(WorkoutSession o) {
         if (this.orderNr == -1L || o.orderNr == -1L) {
-            return (int)(this.workoutSessionId - o.workoutSessionId);
+            return Long.compare(this.workoutSessionId, o.workoutSessionId);
         }
 
-        return (int)(this.orderNr - o.orderNr);
+        return Long.compare(this.orderNr, o.orderNr);
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.datatypes;
+
+import androidx.annotation.Keep;
+
+/**
+ * Projection of a workout session for the session grid, the finished state and the estimated duration are computed by the query.
+ */
+@Keep
+public class WorkoutSessionSummary implements Cloneable, Orderable {
+    private long workoutSessionId;
+    private long trainingPlanId;
+    private long orderNr;
+    private String name;
+    private boolean finished;
+    private int duration; // in sec
+
+    @Override
+    public WorkoutSessionSummary clone() {
+        try {
+            return (WorkoutSessionSummary) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new RuntimeException("failed to clone WorkoutSessionSummary", e);
+        }
+    }
+
+    public long getWorkoutSessionId() {
+        return workoutSessionId;
+    }
+
+    public void setWorkoutSessionId(long workoutSessionId) {
+        this.workoutSessionId = workoutSessionId;
+    }
+
+    public long getTrainingPlanId() {
+        return trainingPlanId;
+    }
+
+    public void setTrainingPlanId(long trainingPlanId) {
+        this.trainingPlanId = trainingPlanId;
+    }
+
+    @Override
+    public long getOrderNr() {
+        return orderNr;
+    }
+
+    @Override
+    public void setOrderNr(long orderNr) {
+        this.orderNr = orderNr;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
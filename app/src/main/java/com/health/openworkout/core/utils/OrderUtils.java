@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core.utils;
+
+import com.health.openworkout.core.datatypes.Orderable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse orderNr keys: neighbours are GAP apart, so moving an element only needs a new key between its new neighbours.
+ * Only if a gap is used up the whole list gets renumbered, which takes 16 moves into the very same gap.
+ * The renumbering is returned with the reorder on purpose: the screen keeps the keys of its loaded list, a rebalance
+ * queued on its own would leave them stale and the next reorder would write the stale keys back.
+ */
+public class OrderUtils {
+    public static final long GAP = 1L << 16;
+
+    public static long nextOrderNr(List<? extends Orderable> list) {
+        long maxOrderNr = 0;
+
+        for (Orderable orderable : list) {
+            maxOrderNr = Math.max(maxOrderNr, orderable.getOrderNr());
+        }
+
+        return maxOrderNr + GAP;
+    }
+
+    /**
+     * Assigns new orderNr keys to the elements which are out of order in the given list.
+     * The longest strictly ascending run of keys is kept, so a single move changes a single element.
+     *
+     * @return the elements with a changed orderNr
+     */
+    public static <T extends Orderable> List<T> reorder(List<T> list) {
+        int size = list.size();
+        int[] tails = new int[size];
+        int[] prev = new int[size];
+        int length = 0;
+
+        // patience sorting for the longest strictly ascending subsequence
+        for (int i=0; i<size; i++) {
+            long orderNr = list.get(i).getOrderNr();
+            int low = 0;
+            int high = length;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+
+                if (list.get(tails[mid]).getOrderNr() < orderNr) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            prev[i] = (low > 0) ? tails[low - 1] : -1;
+            tails[low] = i;
+
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] keep = new boolean[size];
+
+        for (int i = (length > 0) ? tails[length - 1] : -1; i != -1; i = prev[i]) {
+            // keys below 1 are left over from the old -1 default, don't keep them
+            keep[i] = list.get(i).getOrderNr() > 0;
+        }
+
+        List<T> changedList = new ArrayList<>();
+        int i = 0;
+
+        while (i < size) {
+            if (keep[i]) {
+                i++;
+                continue;
+            }
+
+            int start = i;
+
+            while (i < size && !keep[i]) {
+                i++;
+            }
+
+            int count = i - start;
+            long lower = (start > 0) ? list.get(start - 1).getOrderNr() : 0;
+            long upper = (i < size) ? list.get(i).getOrderNr() : lower + (count + 1) * GAP;
+            long step = (upper - lower) / (count + 1);
+
+            if (step == 0) {
+                return rebalance(list);
+            }
+
+            for (int j=0; j<count; j++) {
+                T orderable = list.get(start + j);
+                orderable.setOrderNr(lower + step * (j + 1));
+                changedList.add(orderable);
+            }
+        }
+
+        return changedList;
+    }
+
+    private static <T extends Orderable> List<T> rebalance(List<T> list) {
+        for (int i=0; i<list.size(); i++) {
+            list.get(i).setOrderNr((i + 1) * GAP);
+        }
+
+        return new ArrayList<>(list);
+    }
+}
@@ -21,11 +21,20 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.MediaStore;
 import android.widget.Toast;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.health.openworkout.R;
+import com.health.openworkout.core.MediaFileStore;
 import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.GitHubFile;
 import com.health.openworkout.core.datatypes.TrainingPlan;
@@ -34,17 +43,31 @@ import com.health.openworkout.core.datatypes.WorkoutSession;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import okhttp3.ResponseBody;
@@ -59,11 +82,15 @@ import retrofit2.http.Url;
 import timber.log.Timber;
 
 public class PackageUtils {
+    // already compressed media gain nothing from deflating, they are written without compression
+    private static final Set<String> COMPRESSED_MEDIA_EXTENSIONS = new HashSet<>(Arrays.asList("mp4", "m4v", "webm", "3gp", "mkv", "png", "jpg", "jpeg", "gif", "webp"));
+    // media files are read and written on a small pool during the import
+    private static final int IO_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MEDIA_TASK_TIMEOUT_SECONDS = 60;
+
     private Context context;
     private Gson gson;
-    private File trainingDir;
-    private File trainingImageDir;
-    private File trainingVideoDir;
     private Retrofit retrofit;
     private GitHubApi gitHubApi;
     private OnGitHubCallbackListener onGitHubCallbackListener;
@@ -95,32 +122,103 @@ public class PackageUtils {
     private TrainingPlan importTrainingPlan(Uri zipFileUri, String filename) {
         Timber.d("Import training plan " + filename);
 
-        try {
-            unzipFile(zipFileUri, filename);
+        long startTime = System.currentTimeMillis();
+        TrainingPlan trainingPlan = null;
+        File spoolFile = null;
+        ExecutorService importExecutor = Executors.newFixedThreadPool(IO_THREADS);
 
-            File trainingDatabase = new File(context.getFilesDir(), filename + "/database.json");
+        try {
+            // ZipFile reads the central directory, so a package behind a content uri is copied to a local file once
+            File packageFile;
 
-            StringBuilder result;
-            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(trainingDatabase)));
-            result = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                result.append(line);
+            if ("file".equals(zipFileUri.getScheme())) {
+                packageFile = new File(zipFileUri.getPath());
+            } else {
+                spoolFile = spoolPackage(zipFileUri);
+                packageFile = spoolFile;
             }
 
-            reader.close();
+            final ZipFile zipFile = new ZipFile(packageFile);
+            Map<String, String> mediaPaths = new HashMap<>();
 
-            TrainingPlan gsonTrainingPlan = gson.fromJson(result.toString(), TrainingPlan.class);
-            Timber.d("Read training database " + gsonTrainingPlan.getName());
-            OpenWorkout.getInstance().insertTrainingPlan(gsonTrainingPlan);
+            try {
+                // the media files are stored concurrently before database.json is read, so all of its paths can be resolved at once
+                Map<String, Future<String>> storedMediaPaths = new HashMap<>();
+                ZipEntry databaseEntry = null;
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+                while (entries.hasMoreElements()) {
+                    final ZipEntry entry = entries.nextElement();
+                    final String entryName = getValidEntryName(entry);
+
+                    if (entryName.equals("database.json")) {
+                        databaseEntry = entry;
+                    } else if (!entry.isDirectory()) {
+                        storedMediaPaths.put(entryName, importExecutor.submit(new Callable<String>() {
+                            @Override
+                            public String call() throws IOException {
+                                InputStream in = zipFile.getInputStream(entry);
+
+                                try {
+                                    return storeMediaFile(in, entryName);
+                                } finally {
+                                    in.close();
+                                }
+                            }
+                        }));
+                    }
+                }
 
-            Toast.makeText(context, String.format(context.getString(R.string.label_info_imported), gsonTrainingPlan.getName(), filename), Toast.LENGTH_LONG).show();
+                if (databaseEntry == null) {
+                    throw new IOException("No database.json in " + filename);
+                }
 
-            return gsonTrainingPlan;
-        } catch (IOException ex) {
-            Toast.makeText(context, String.format(context.getString(R.string.error_no_valid_training_package), filename + ".zip"), Toast.LENGTH_LONG).show();
+                for (Map.Entry<String, Future<String>> storedMediaPath : storedMediaPaths.entrySet()) {
+                    mediaPaths.put(storedMediaPath.getKey(), storedMediaPath.getValue().get());
+                }
+
+                JsonReader reader = new JsonReader(new InputStreamReader(new BufferedInputStream(zipFile.getInputStream(databaseEntry), BUFFER_SIZE), "UTF-8"));
+
+                try {
+                    trainingPlan = readTrainingPlan(reader, mediaPaths);
+                } finally {
+                    reader.close();
+                }
+
+                Timber.d("Read training database " + trainingPlan.getName());
+            } finally {
+                // after a failed media file the others are still running, they have to be done before the zip
+                // is closed and before the unused media are swept
+                try {
+                    stopMediaTasks(importExecutor);
+                } finally {
+                    zipFile.close();
+                }
+            }
+
+            Timber.d("Imported " + filename + " with " + mediaPaths.size() + " media files in " + (System.currentTimeMillis() - startTime) + " ms");
+            // all zip entries are stored, the ones database.json doesn't reference are removed again
+            OpenWorkout.getInstance().deleteUnusedMedia();
+            showToast(String.format(context.getString(R.string.label_info_imported), trainingPlan.getName(), filename));
+
+            return trainingPlan;
+        } catch (IOException | JsonParseException | InterruptedException | ExecutionException ex) {
+            // don't keep a training plan whose media files are missing, nor the media files already stored
+            if (trainingPlan != null) {
+                OpenWorkout.getInstance().deleteTrainingPlan(trainingPlan.getTrainingPlanId());
+            } else {
+                OpenWorkout.getInstance().deleteUnusedMedia();
+            }
+
+            showToast(String.format(context.getString(R.string.error_no_valid_training_package), filename + ".zip"));
             Timber.e(ex);
         } finally {
+            importExecutor.shutdownNow();
+
+            if (spoolFile != null) {
+                spoolFile.delete();
+            }
+
             File zipFile = new File(context.getFilesDir(), filename + ".zip");
             if (zipFile.exists()) {
                 Timber.d("Delete unzipped local zip file " + zipFile);
@@ -131,222 +229,325 @@ public class PackageUtils {
         return null;
     }
 
-    public void exportTrainingPlan(TrainingPlan trainingPlan, Uri zipFileUri) {
-        Timber.d("Export training plan " + trainingPlan.getName());
+    private File spoolPackage(Uri zipFileUri) throws IOException {
+        File spoolFile = File.createTempFile("import", ".zip", context.getCacheDir());
+        InputStream in = context.getContentResolver().openInputStream(zipFileUri);
 
         try {
-            String zipFileDisplayName = getDisplayName(zipFileUri);
-
-            trainingDir = new File(context.getFilesDir(), trainingPlan.getName());
-            trainingImageDir = new File(context.getFilesDir(), trainingPlan.getName()+"/image");
-            trainingVideoDir = new File(context.getFilesDir(), trainingPlan.getName()+ "/video");
+            OutputStream out = new FileOutputStream(spoolFile);
 
-            if (trainingDir.exists()) {
-                deleteDirectory(trainingDir);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
             }
+        } finally {
+            in.close();
+        }
 
-            trainingDir.mkdir();
-            trainingImageDir.mkdir();
-            trainingVideoDir.mkdir();
+        return spoolFile;
+    }
 
-            trainingPlan.setTrainingPlanId(0);
+    // the entry names key the packaged media paths, so an entry must not point outside of the package root
+    private String getValidEntryName(ZipEntry entry) throws IOException {
+        String entryName = entry.getName().replaceFirst("^/+", "");
+        File rootDir = context.getCacheDir().getCanonicalFile();
+        File entryFile = new File(rootDir, entryName).getCanonicalFile();
 
-            if (trainingPlan.isImagePathExternal()) {
-                trainingPlan.setImagePath(copyImageToInternalStorage(trainingPlan.getImagePath()));
-            }
+        if (!entryFile.getPath().startsWith(rootDir.getPath() + File.separator)) {
+            throw new IOException("Zip entry " + entry.getName() + " is outside of the package");
+        }
 
-            for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
-                workoutSession.setWorkoutSessionId(0);
+        return entryName;
+    }
 
-                for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                    workoutItem.setWorkoutItemId(0);
+    // streams the training plan object, each workout session is inserted as soon as it is parsed, so only one is held in memory
+    private TrainingPlan readTrainingPlan(JsonReader reader, Map<String, String> mediaPaths) throws IOException {
+        OpenWorkout openWorkout = OpenWorkout.getInstance();
+        JsonObject trainingPlanFields = new JsonObject();
+        long trainingPlanId = 0;
+        long orderNr = 0;
+
+        try {
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if (name.equals("workoutSessions") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    // the sessions need the id of their training plan, so it is inserted with the fields read so far
+                    if (trainingPlanId == 0) {
+                        TrainingPlan trainingPlan = gson.fromJson(trainingPlanFields, TrainingPlan.class);
+                        trainingPlan.setTrainingPlanId(0);
+                        resolveMediaPaths(trainingPlan, mediaPaths);
+                        trainingPlanId = openWorkout.insertTrainingPlan(trainingPlan);
+                    }
+
+                    reader.beginArray();
 
-                   if (workoutItem.isImagePathExternal()) {
-                       workoutItem.setImagePath(copyImageToInternalStorage(workoutItem.getImagePath()));
-                   }
+                    while (reader.hasNext()) {
+                        WorkoutSession workoutSession = gson.fromJson(reader, WorkoutSession.class);
+                        orderNr += OrderUtils.GAP;
+
+                        workoutSession.setWorkoutSessionId(0);
+                        workoutSession.setTrainingPlanId(trainingPlanId);
+                        workoutSession.setOrderNr(orderNr);
+                        resolveMediaPaths(workoutSession, mediaPaths);
+                        openWorkout.insertWorkoutSession(workoutSession);
+                    }
 
-                   if (workoutItem.isVideoPathExternal()) {
-                       workoutItem.setVideoPath(copyVideoToInternalStorage(workoutItem.getVideoPath()));
-                   }
+                    reader.endArray();
+                } else {
+                    trainingPlanFields.add(name, JsonParser.parseReader(reader));
                 }
             }
 
-            String jsonString = gson.toJson(trainingPlan);
-            File trainingDatabase = new File(trainingDir, "database.json");
-            FileOutputStream jsonOut = new FileOutputStream(trainingDatabase);
-            jsonOut.write(jsonString.getBytes());
-            jsonOut.close();
-            Timber.d("Written database.json");
+            reader.endObject();
 
-            zipDirectory(trainingDir, zipFileUri);
-            Timber.d("Zipped " + trainingPlan.getName());
-            deleteDirectory(trainingDir);
-            Toast.makeText(context, String.format(context.getString(R.string.label_info_exported), trainingPlan.getName(), zipFileDisplayName), Toast.LENGTH_LONG).show();
-        }catch (IOException ex) {
-            Toast.makeText(context, ex.getLocalizedMessage(), Toast.LENGTH_LONG).show();
+            TrainingPlan trainingPlan = gson.fromJson(trainingPlanFields, TrainingPlan.class);
+            trainingPlan.setTrainingPlanId(trainingPlanId);
+            resolveMediaPaths(trainingPlan, mediaPaths);
 
-            Timber.e(ex);
+            if (trainingPlanId == 0) {
+                openWorkout.insertTrainingPlan(trainingPlan);
+            } else {
+                openWorkout.updateTrainingPlan(trainingPlan);
+            }
+
+            return trainingPlan;
+        } catch (IOException | RuntimeException ex) {
+            if (trainingPlanId != 0) {
+                openWorkout.deleteTrainingPlan(trainingPlanId);
+            }
+
+            throw ex;
         }
     }
 
-    private String copyImageToInternalStorage(String imagePath) throws IOException {
-        Uri fileUri = Uri.parse(imagePath);
-        String displayName = getDisplayName(fileUri);
-        File trainingImg = new File(trainingImageDir, displayName);
+    // a package file named after its SHA-256 which is already stored is not copied again
+    // cancels the media files which haven't started yet and waits for the running ones
+    private void stopMediaTasks(ExecutorService executor) throws InterruptedException {
+        executor.shutdownNow();
 
-        if (!trainingImg.exists()) {
-            InputStream in = context.getContentResolver().openInputStream(fileUri);
-            FileOutputStream out = new FileOutputStream(trainingImg);
+        if (!executor.awaitTermination(MEDIA_TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            Timber.w("Media files still being stored after " + MEDIA_TASK_TIMEOUT_SECONDS + " s");
+        }
+    }
 
-            copyFile(in, out);
+    private String storeMediaFile(InputStream in, String entryName) throws IOException {
+        MediaFileStore mediaFileStore = OpenWorkout.getInstance().getMediaFileStore();
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        String storedPath = mediaFileStore.get(fileName);
 
-            Timber.d("Copied file " + displayName + " to internal storage");
+        if (storedPath != null) {
+            Timber.d("Skip stored file " + entryName);
+            return storedPath;
         }
 
-        return Uri.fromFile(trainingImg).toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        storedPath = mediaFileStore.put(in, extensionIndex != -1 ? fileName.substring(extensionIndex + 1) : "");
+        Timber.d("Stored file " + entryName);
+
+        return storedPath;
     }
 
-    private String copyVideoToInternalStorage(String videoPath) throws IOException {
-        Uri fileUri = Uri.parse(videoPath);
-        String displayName = getDisplayName(fileUri);
-        File trainingVideo = new File(trainingVideoDir, displayName);
+    // the packaged paths point to <files dir>/<export name>/<entry name> or to <files dir>/media/<entry name>
+    private String resolveMediaPath(String path, Map<String, String> mediaPaths) {
+        int filesIndex = path.indexOf("/files/");
 
-        if (!trainingVideo.exists()) {
-            InputStream in = context.getContentResolver().openInputStream(fileUri);
-            FileOutputStream out = new FileOutputStream(trainingVideo);
+        if (filesIndex == -1) {
+            return path;
+        }
 
-            copyFile(in, out);
+        String entryName = path.substring(filesIndex + "/files/".length());
 
-            Timber.d("Copied file " + displayName + " to internal storage");
+        if (mediaPaths.containsKey(entryName)) {
+            return mediaPaths.get(entryName);
         }
 
-        return Uri.fromFile(trainingVideo).toString();
+        entryName = entryName.substring(entryName.indexOf('/') + 1);
+
+        return mediaPaths.containsKey(entryName) ? mediaPaths.get(entryName) : path;
     }
 
-    private void copyFile(InputStream in, OutputStream out) throws IOException {
-        byte[] buffer = new byte[1024];
-        int read;
-        while ((read = in.read(buffer)) != -1) {
-            out.write(buffer, 0, read);
+    private void resolveMediaPaths(TrainingPlan trainingPlan, Map<String, String> mediaPaths) {
+        if (trainingPlan.isImagePathExternal()) {
+            trainingPlan.setImagePath(resolveMediaPath(trainingPlan.getImagePath(), mediaPaths));
         }
-
-        in.close();
-        out.flush();
-        out.close();
     }
 
-    private String getDisplayName(File file) {
-        String displayName = file.getName();
+    private void resolveMediaPaths(WorkoutSession workoutSession, Map<String, String> mediaPaths) {
+        for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
+            if (workoutItem.isImagePathExternal()) {
+                workoutItem.setImagePath(resolveMediaPath(workoutItem.getImagePath(), mediaPaths));
+            }
 
-        if (displayName.endsWith(".zip")) {
-            displayName = displayName.substring(0, displayName.length() - 4);
+            if (workoutItem.isVideoPathExternal()) {
+                workoutItem.setVideoPath(resolveMediaPath(workoutItem.getVideoPath(), mediaPaths));
+            }
         }
-
-        return displayName;
     }
 
-    private String getDisplayName(Uri uri) {
-        String displayName = new String();
-        String[] projection = {MediaStore.MediaColumns.DISPLAY_NAME};
+    /**
+     * Writes the training plan and its media files as zip package, runs on a background thread.
+     * Every media file is read once while it is written; already compressed media are written without
+     * compression and only the remaining entries like database.json are deflated.
+     */
+    public void exportTrainingPlan(TrainingPlan trainingPlan, Uri zipFileUri) {
+        Timber.d("Export training plan " + trainingPlan.getName());
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            String zipFileDisplayName = getDisplayName(zipFileUri);
+
+            // the export rewrites ids and media paths, so it works on a copy of the loaded training plan
+            TrainingPlan exportTrainingPlan = trainingPlan.clone();
+            exportTrainingPlan.setTrainingPlanId(0);
+
+            // media entry name to source, repeated media are packaged once
+            Map<String, Uri> mediaEntries = new LinkedHashMap<>();
+
+            if (exportTrainingPlan.isImagePathExternal()) {
+                exportTrainingPlan.setImagePath(addMediaEntry(mediaEntries, exportTrainingPlan.getName(), "image", exportTrainingPlan.getImagePath()));
+            }
+
+            for (WorkoutSession workoutSession : exportTrainingPlan.getWorkoutSessions()) {
+                for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
+                    if (workoutItem.isImagePathExternal()) {
+                        workoutItem.setImagePath(addMediaEntry(mediaEntries, exportTrainingPlan.getName(), "image", workoutItem.getImagePath()));
+                    }
+
+                    if (workoutItem.isVideoPathExternal()) {
+                        workoutItem.setVideoPath(addMediaEntry(mediaEntries, exportTrainingPlan.getName(), "video", workoutItem.getVideoPath()));
+                    }
+                }
+            }
+
+            ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(context.getContentResolver().openOutputStream(zipFileUri), BUFFER_SIZE));
+            long byteCount = 0;
 
-        Cursor metaCursor = context.getContentResolver().query(uri, projection, null, null, null);
-        if (metaCursor != null) {
             try {
-                if (metaCursor.moveToFirst()) {
-                    displayName = metaCursor.getString(0);
+                // the media files are written first, database.json follows with their paths after the import
+                for (Map.Entry<String, Uri> mediaEntry : mediaEntries.entrySet()) {
+                    byteCount += writeMediaEntry(zipOut, mediaEntry.getKey(), mediaEntry.getValue());
                 }
+
+                zipOut.setLevel(Deflater.DEFAULT_COMPRESSION);
+                zipOut.putNextEntry(new ZipEntry("/database.json"));
+                JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(zipOut, "UTF-8"));
+                gson.toJson(exportTrainingPlan, TrainingPlan.class, jsonWriter);
+                jsonWriter.flush();
+                zipOut.closeEntry();
+                Timber.d("Written database.json");
             } finally {
-                metaCursor.close();
+                zipOut.close();
             }
+
+            long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+            Timber.d(String.format(Locale.US, "Zipped %s, %d media files with %.1f MB in %d ms (%.1f MB/s)", trainingPlan.getName(), mediaEntries.size(),
+                    byteCount / 1048576.0, elapsedTime, byteCount / 1048576.0 / (elapsedTime / 1000.0)));
+            showToast(String.format(context.getString(R.string.label_info_exported), trainingPlan.getName(), zipFileDisplayName));
+        } catch (IOException ex) {
+            showToast(ex.getLocalizedMessage());
+
+            Timber.e(ex);
         }
+    }
 
-        if (displayName.endsWith(".zip")) {
-            displayName = displayName.substring(0, displayName.length() - 4);
+    // store media keep their path and are packaged by their content hash, other media are packaged under the training plan name
+    private String addMediaEntry(Map<String, Uri> mediaEntries, String trainingName, String folder, String mediaPath) {
+        Uri fileUri = Uri.parse(mediaPath);
+
+        if (OpenWorkout.getInstance().getMediaFileStore().contains(mediaPath)) {
+            mediaEntries.put("/" + MediaFileStore.DIRECTORY + "/" + fileUri.getLastPathSegment(), fileUri);
+            return mediaPath;
         }
 
-        return displayName;
-    }
+        String displayName = getDisplayName(fileUri);
+
+        if (displayName.isEmpty()) {
+            displayName = fileUri.getLastPathSegment();
+        }
 
-    private void zipDirectory(File directoryToCompress, Uri outputFile) throws IOException {
-        OutputStream dest = context.getContentResolver().openOutputStream(outputFile);
-        ZipOutputStream zipOutputStream = new ZipOutputStream(dest);
+        String entryName = "/" + folder + "/" + displayName;
+        mediaEntries.put(entryName, fileUri);
 
-        compressDirectory(directoryToCompress, directoryToCompress, zipOutputStream);
-        zipOutputStream.close();
+        return Uri.fromFile(new File(context.getFilesDir(), trainingName + entryName)).toString();
     }
 
-    private void compressDirectory(File rootDirectory, File currentDirectory, ZipOutputStream out) throws IOException {
-        byte[] data = new byte[2048];
+    // the entries are deflated, a STORED entry would need its size and CRC up front and so a second read of the media,
+    // already compressed media are deflated without compression instead; returns the number of copied bytes
+    private long writeMediaEntry(ZipOutputStream zipOut, String entryName, Uri fileUri) throws IOException {
+        String extension = entryName.substring(entryName.lastIndexOf('.') + 1).toLowerCase(Locale.US);
+        boolean compressedMedia = COMPRESSED_MEDIA_EXTENSIONS.contains(extension);
+        InputStream in = context.getContentResolver().openInputStream(fileUri);
+        long byteCount = 0;
 
-        File[] files = currentDirectory.listFiles();
+        zipOut.setLevel(compressedMedia ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        zipOut.putNextEntry(new ZipEntry(entryName));
 
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    compressDirectory(rootDirectory, file, out);
-                } else {
-                    FileInputStream fi = new FileInputStream(file);
-                    // creating structure and avoiding duplicate file names
-                    String name = file.getAbsolutePath().replace(rootDirectory.getAbsolutePath(), "");
-
-                    ZipEntry entry = new ZipEntry(name);
-                    out.putNextEntry(entry);
-                    int count;
-                    BufferedInputStream origin = new BufferedInputStream(fi, 2048);
-                    while ((count = origin.read(data, 0, 2048)) != -1) {
-                        out.write(data, 0, count);
-                    }
-                    origin.close();
-                }
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                zipOut.write(buffer, 0, read);
+                byteCount += read;
             }
+        } finally {
+            in.close();
         }
-    }
 
-    private void unzipFile(Uri zipFileUri, String filename) throws IOException {
-        InputStream in = context.getContentResolver().openInputStream(zipFileUri);
-        ZipInputStream zipIn = new ZipInputStream(in);
-
-        File rootDir = new File(context.getFilesDir(),  filename);
-        rootDir.mkdir();
+        zipOut.closeEntry();
+        Timber.d("Zipped file " + entryName + (compressedMedia ? " (uncompressed)" : ""));
 
-        ZipEntry entry = zipIn.getNextEntry();
-        // iterates over entries in the zip file
-        while (entry != null) {
-            File zipOut = new File(context.getFilesDir(),  filename + "/" + entry.getName());
+        return byteCount;
+    }
 
-            if (!entry.isDirectory()) {
-                zipOut.getParentFile().mkdir();
-                // if the entry is a file, extracts it
-                extractFile(zipIn, zipOut);
-                Timber.d("Extract file " + entry.getName());
-            } else {
-                zipOut.mkdir();
-                Timber.d("Extract folder " + entry.getName());
+    // the import runs on the database executor, so toasts have to be posted to the main thread
+    private void showToast(final String message) {
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(context, message, Toast.LENGTH_LONG).show();
             }
-            zipIn.closeEntry();
+        });
+    }
+
+    private String getDisplayName(File file) {
+        String displayName = file.getName();
 
-            entry = zipIn.getNextEntry();
+        if (displayName.endsWith(".zip")) {
+            displayName = displayName.substring(0, displayName.length() - 4);
         }
-        zipIn.close();
+
+        return displayName;
     }
 
-    private void extractFile(ZipInputStream zipIn, File fileOutput) throws IOException {
-        BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(fileOutput));
-        byte[] bytesIn = new byte[2048];
-        int read = 0;
-        while ((read = zipIn.read(bytesIn)) != -1) {
-            bos.write(bytesIn, 0, read);
+    private String getDisplayName(Uri uri) {
+        String displayName = new String();
+        String[] projection = {MediaStore.MediaColumns.DISPLAY_NAME};
+
+        Cursor metaCursor = context.getContentResolver().query(uri, projection, null, null, null);
+        if (metaCursor != null) {
+            try {
+                if (metaCursor.moveToFirst()) {
+                    displayName = metaCursor.getString(0);
+                }
+            } finally {
+                metaCursor.close();
+            }
         }
-        bos.flush();
-        bos.close();
-    }
 
-    private void deleteDirectory(File fileOrDirectory) {
-        if (fileOrDirectory.isDirectory())
-            for (File child : fileOrDirectory.listFiles())
-                deleteDirectory(child);
+        if (displayName.endsWith(".zip")) {
+            displayName = displayName.substring(0, displayName.length() - 4);
+        }
 
-        fileOrDirectory.delete();
+        return displayName;
     }
 
     public void getGitHubFiles() {
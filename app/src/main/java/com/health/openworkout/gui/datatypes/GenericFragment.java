@@ -18,7 +18,6 @@
 package com.health.openworkout.gui.datatypes;
 
 import android.content.DialogInterface;
-import android.os.AsyncTask;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -34,6 +33,7 @@ import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.health.openworkout.R;
+import com.health.openworkout.core.OpenWorkout;
 
 import java.util.Collections;
 import java.util.List;
@@ -131,6 +131,15 @@ public abstract class GenericFragment extends Fragment {
                 break;
         }
 
+        refreshAdapterListeners();
+    }
+
+    // the adapter is created once the items are loaded from the database, so subclasses call this again afterwards
+    protected void refreshAdapterListeners() {
+        if (getAdapter() == null) {
+            return;
+        }
+
         if (mode == GenericFragment.FRAGMENT_MODE.VIEW) {
             touchHelper.attachToRecyclerView(null);
 
@@ -164,20 +173,19 @@ public abstract class GenericFragment extends Fragment {
                     if (position != -1) {
                         getProgressBar().setVisibility(View.VISIBLE);
                         getAdapter().notifyItemInserted(position+1);
-                        new AsyncTask<Void, Void, Void>() {
+                        OpenWorkout.getInstance().executeAsync(new Runnable() {
                             @Override
-                            protected Void doInBackground(Void ... params) {
+                            public void run() {
                                 onDuplicateCallback(position);
-                                return null;
                             }
-
+                        }, new Runnable() {
                             @Override
-                            protected void onPostExecute(Void o) {
+                            public void run() {
                                 if (getProgressBar() != null) {
                                     getProgressBar().setVisibility(View.GONE);
                                 }
                             }
-                        }.execute();
+                        });
                     }
                 }
             });
@@ -227,13 +235,17 @@ public abstract class GenericFragment extends Fragment {
         switch (item.getItemId()) {
             case R.id.edit:
                 mode = GenericFragment.FRAGMENT_MODE.EDIT;
-                getAdapter().setMode(mode);
+                if (getAdapter() != null) {
+                    getAdapter().setMode(mode);
+                }
                 refreshMenuVisibility();
                 loadFromDatabase();
                 return true;
             case R.id.save:
                 mode = GenericFragment.FRAGMENT_MODE.VIEW;
-                getAdapter().setMode(mode);
+                if (getAdapter() != null) {
+                    getAdapter().setMode(mode);
+                }
                 refreshMenuVisibility();
                 saveToDatabase();
                 loadFromDatabase();
@@ -248,23 +260,24 @@ public abstract class GenericFragment extends Fragment {
                         switch (which){
                             case DialogInterface.BUTTON_POSITIVE:
                                 getProgressBar().setVisibility(View.VISIBLE);
-                                new AsyncTask<Void, Void, Void>() {
+                                OpenWorkout.getInstance().executeAsync(new Runnable() {
                                     @Override
-                                    protected Void doInBackground(Void ... params) {
+                                    public void run() {
                                         onResetClick();
-                                        return null;
                                     }
-
+                                }, new Runnable() {
                                     @Override
-                                    protected void onPostExecute(Void o) {
-                                        if (getProgressBar() != null) {
-                                            getProgressBar().setVisibility(View.GONE);
+                                    public void run() {
+                                        if (getView() == null) {
+                                            return;
                                         }
+
+                                        getProgressBar().setVisibility(View.GONE);
                                         loadFromDatabase();
 
                                         Toast.makeText(getActivity(), String.format(getString(R.string.label_reset_toast), getTitle()), Toast.LENGTH_SHORT).show();
                                     }
-                                }.execute();
+                                });
                                 break;
                             case DialogInterface.BUTTON_NEGATIVE:
                                 //No button clicked
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.gui.datatypes;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * GenericAdapter which fills its list page by page from a keyset page source.
+ * The next page is requested once a row close to the end of the loaded rows gets bound.
+ */
+public abstract class GenericPagedAdapter<T, VH extends GenericAdapter.ViewHolder> extends GenericAdapter<VH> {
+    public static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 20;
+
+    private final List<T> itemList;
+    private PageSource<T> pageSource;
+    private boolean isLoading;
+    private boolean isFullyLoaded;
+    private boolean isLoadingAll;
+
+    public GenericPagedAdapter(Context aContext, List<T> itemList) {
+        super(aContext);
+        this.itemList = itemList;
+    }
+
+    public void setPageSource(PageSource<T> pageSource) {
+        this.pageSource = pageSource;
+        isFullyLoaded = false;
+        loadNextPage();
+    }
+
+    // e.g. for reordering, which needs every row of the list
+    public void loadAll() {
+        isLoadingAll = true;
+        loadNextPage();
+    }
+
+    public boolean isFullyLoaded() {
+        return isFullyLoaded;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position) {
+        super.onBindViewHolder(holder, position);
+
+        if (position >= itemList.size() - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemList.size();
+    }
+
+    private void loadNextPage() {
+        if (pageSource == null || isLoading || isFullyLoaded) {
+            return;
+        }
+
+        isLoading = true;
+        T lastItem = itemList.isEmpty() ? null : itemList.get(itemList.size() - 1);
+
+        pageSource.loadPage(lastItem, PAGE_SIZE, new PageCallback<T>() {
+            @Override
+            public void onPageLoaded(List<T> page) {
+                isLoading = false;
+                isFullyLoaded = page.size() < PAGE_SIZE;
+
+                int positionStart = itemList.size();
+                itemList.addAll(page);
+                notifyItemRangeInserted(positionStart, page.size());
+
+                if (isLoadingAll) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    public interface PageSource<T> {
+        // loads the next pageSize rows after lastItem, or the first rows if lastItem is null
+        void loadPage(T lastItem, int pageSize, PageCallback<T> callback);
+    }
+
+    public interface PageCallback<T> {
+        void onPageLoaded(List<T> page);
+    }
+}
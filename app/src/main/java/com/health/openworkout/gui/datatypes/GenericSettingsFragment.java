@@ -42,6 +42,8 @@ public abstract class GenericSettingsFragment extends Fragment {
     }
 
     protected abstract String getTitle();
+    // the edited entity is loaded asynchronously, saving and resetting are ignored until it is there
+    protected abstract boolean isLoaded();
     protected abstract void loadFromDatabase(SETTING_MODE mode);
     protected abstract boolean saveToDatabase(SETTING_MODE mode);
 
@@ -74,12 +76,20 @@ public abstract class GenericSettingsFragment extends Fragment {
 
         switch (item.getItemId()) {
             case R.id.save:
+                if (!isLoaded()) {
+                    return true;
+                }
+
                 if (saveToDatabase(mode)) {
                     Toast.makeText(getContext(), String.format(getString(R.string.label_save_toast), getTitle()), Toast.LENGTH_SHORT).show();
                     Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigateUp();
                 }
                 return true;
             case R.id.reset:
+                if (!isLoaded()) {
+                    return true;
+                }
+
                 Toast.makeText(getContext(), String.format(getString(R.string.label_reset_toast), getTitle()), Toast.LENGTH_SHORT).show();
                 loadFromDatabase(mode);
                 return true;
@@ -30,7 +30,6 @@ import androidx.navigation.Navigation;
 
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
-import com.health.openworkout.core.datatypes.WorkoutSession;
 import com.health.openworkout.gui.utils.SoundUtils;
 
 import java.text.DateFormat;
@@ -44,8 +43,6 @@ public class TrophyFragment extends Fragment {
     private Button okView;
     private SoundUtils soundUtils;
 
-    private WorkoutSession workoutSession;
-
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
         View root = inflater.inflate(R.layout.fragment_trophy, container, false);
@@ -53,13 +50,11 @@ public class TrophyFragment extends Fragment {
         elapsedTimeView = root.findViewById(R.id.elapsedTimeView);
         okView = root.findViewById(R.id.okView);
 
-        long workoutSessionId = TrophyFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
-
-        workoutSession = OpenWorkout.getInstance().getWorkoutSession(workoutSessionId);
+        long elapsedSessionTime = TrophyFragmentArgs.fromBundle(getArguments()).getElapsedSessionTime();
 
         Calendar elapsedCalendar = Calendar.getInstance();
 
-        elapsedCalendar.setTimeInMillis(workoutSession.getElapsedSessionTime() * 1000);
+        elapsedCalendar.setTimeInMillis(elapsedSessionTime * 1000);
 
         DateFormat dateFormatter= SimpleDateFormat.getTimeInstance();
         dateFormatter.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -32,15 +32,20 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.navigation.NavDirections;
 import androidx.navigation.Navigation;
 
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.TrainingPlan;
+import com.health.openworkout.core.datatypes.TrainingPlanSummary;
 import com.health.openworkout.core.datatypes.User;
 import com.health.openworkout.core.datatypes.WorkoutSession;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+
 public class HomeFragment extends Fragment {
     private ImageView startView;
     private ImageView detailTrainingView;
@@ -51,7 +56,7 @@ public class HomeFragment extends Fragment {
 
     private OpenWorkout openWorkout;
     private User user;
-    private TrainingPlan userTrainingPlan;
+    private TrainingPlanSummary userTrainingPlan;
 
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
@@ -64,25 +69,25 @@ public class HomeFragment extends Fragment {
         startView.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                userTrainingPlan = openWorkout.getTrainingPlan(user.getTrainingsPlanId());
-
-                if (userTrainingPlan != null) {
-                    WorkoutSession nextUserWorkoutSession = userTrainingPlan.getNextWorkoutSession();
-                    if (nextUserWorkoutSession != null) {
-                        if (!nextUserWorkoutSession.getWorkoutItems().isEmpty()) {
-                            HomeFragmentDirections.ActionHomeFragmentToWorkoutFragmentSlide action = HomeFragmentDirections.actionHomeFragmentToWorkoutFragmentSlide();
-                            action.setTitle(nextUserWorkoutSession.getName());
-                            action.setSessionWorkoutId(nextUserWorkoutSession.getWorkoutSessionId());
-                            Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
-                        } else {
-                            Toast.makeText(getContext(), String.format(getString(R.string.error_no_workout_items), nextUserWorkoutSession.getName()), Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        Toast.makeText(getContext(), String.format(getString(R.string.error_no_sessions), userTrainingPlan.getName()), Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    Toast.makeText(getContext(), R.string.error_no_trainings, Toast.LENGTH_SHORT).show();
+                if (user == null) {
+                    return;
                 }
+
+                final long trainingPlanId = user.getTrainingsPlanId();
+
+                // the progress is stored against the sessions, so a derived plan gets its own copy of them first
+                openWorkout.loadAsync(new Callable<TrainingPlan>() {
+                    @Override
+                    public TrainingPlan call() {
+                        openWorkout.materializeTrainingPlan(trainingPlanId);
+                        return openWorkout.getTrainingPlan(trainingPlanId, OpenWorkout.PREFETCH.WORKOUT_ITEMS);
+                    }
+                }).observe(getViewLifecycleOwner(), new Observer<TrainingPlan>() {
+                    @Override
+                    public void onChanged(TrainingPlan trainingPlan) {
+                        startNextWorkoutSession(trainingPlan);
+                    }
+                });
             }
         });
 
@@ -90,24 +95,71 @@ public class HomeFragment extends Fragment {
         sessionProgressBar = root.findViewById(R.id.sessionProgressBar);
         sessionView = root.findViewById(R.id.sessionView);
         trainingNameView = root.findViewById(R.id.trainingNameView);
+        avatarGroup = root.findViewById(R.id.avatarGroup);
+
+        detailTrainingView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                NavDirections action = HomeFragmentDirections.actionHomeFragmentToTrainingFragment();
+                Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
+            }
+        });
+
+        // the spinner and the progress bar only need the summaries, the whole plan is loaded on start
+        openWorkout.loadTrainingPlanSummaries().observe(getViewLifecycleOwner(), new Observer<List<TrainingPlanSummary>>() {
+            @Override
+            public void onChanged(List<TrainingPlanSummary> trainingPlanList) {
+                onTrainingPlansLoaded(trainingPlanList);
+            }
+        });
+
+        return root;
+    }
+
+    private void startNextWorkoutSession(TrainingPlan trainingPlan) {
+        if (trainingPlan != null) {
+            WorkoutSession nextUserWorkoutSession = trainingPlan.getNextWorkoutSession();
+            if (nextUserWorkoutSession != null) {
+                if (!nextUserWorkoutSession.getWorkoutItems().isEmpty()) {
+                    HomeFragmentDirections.ActionHomeFragmentToWorkoutFragmentSlide action = HomeFragmentDirections.actionHomeFragmentToWorkoutFragmentSlide();
+                    action.setTitle(nextUserWorkoutSession.getName());
+                    action.setSessionWorkoutId(nextUserWorkoutSession.getWorkoutSessionId());
+                    Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
+                } else {
+                    Toast.makeText(getContext(), String.format(getString(R.string.error_no_workout_items), nextUserWorkoutSession.getName()), Toast.LENGTH_SHORT).show();
+                }
+            } else {
+                Toast.makeText(getContext(), String.format(getString(R.string.error_no_sessions), trainingPlan.getName()), Toast.LENGTH_SHORT).show();
+            }
+        } else {
+            Toast.makeText(getContext(), R.string.error_no_trainings, Toast.LENGTH_SHORT).show();
+        }
+    }
 
+    private void onTrainingPlansLoaded(List<TrainingPlanSummary> trainingPlanList) {
         user = openWorkout.getCurrentUser();
-        userTrainingPlan = openWorkout.getTrainingPlan(user.getTrainingsPlanId());
+        userTrainingPlan = null;
+
+        for (TrainingPlanSummary trainingPlan : trainingPlanList) {
+            if (trainingPlan.getTrainingPlanId() == user.getTrainingsPlanId()) {
+                userTrainingPlan = trainingPlan;
+            }
+        }
 
         //  if user training plan was deleted
         if (userTrainingPlan == null) {
             // abort if all training plans were deleted
-            if (openWorkout.getTrainingPlans().isEmpty()) {
-                return root;
+            if (trainingPlanList.isEmpty()) {
+                return;
             } else {
                 // get the first one in training plan list and update user training plan id if exist
-                userTrainingPlan = openWorkout.getTrainingPlans().get(0);
+                userTrainingPlan = trainingPlanList.get(0);
                 user.setTrainingsPlanId(userTrainingPlan.getTrainingPlanId());
-                openWorkout.updateUser(user);
+                updateUser();
             }
         }
 
-        final ArrayAdapter<TrainingPlan> spinnerArrayAdapter = new ArrayAdapter<>(getActivity(), R.layout.support_simple_spinner_dropdown_item, openWorkout.getTrainingPlans());
+        final ArrayAdapter<TrainingPlanSummary> spinnerArrayAdapter = new ArrayAdapter<>(getActivity(), R.layout.support_simple_spinner_dropdown_item, trainingPlanList);
 
         spinnerArrayAdapter.setDropDownViewResource(R.layout.support_simple_spinner_dropdown_item);
         trainingNameView.setAdapter(spinnerArrayAdapter);
@@ -116,10 +168,10 @@ public class HomeFragment extends Fragment {
         trainingNameView.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                TrainingPlan selectedTrainingPlan = spinnerArrayAdapter.getItem(position);
+                TrainingPlanSummary selectedTrainingPlan = spinnerArrayAdapter.getItem(position);
 
                 user.setTrainingsPlanId(selectedTrainingPlan.getTrainingPlanId());
-                openWorkout.updateUser(user);
+                updateUser();
                 updateProgressBar(selectedTrainingPlan);
             }
 
@@ -135,8 +187,6 @@ public class HomeFragment extends Fragment {
             }
         }
 
-        avatarGroup = root.findViewById(R.id.avatarGroup);
-
         if (user.isMale()) {
             avatarGroup.check(R.id.radioMale);
         } else {
@@ -157,30 +207,29 @@ public class HomeFragment extends Fragment {
                         break;
                 }
 
-                openWorkout.updateUser(user);
+                updateUser();
             }
         });
 
-        detailTrainingView.setOnClickListener(new View.OnClickListener() {
+        updateProgressBar(userTrainingPlan);
+    }
+
+    private void updateUser() {
+        openWorkout.executeAsync(new Runnable() {
             @Override
-            public void onClick(View v) {
-                NavDirections action = HomeFragmentDirections.actionHomeFragmentToTrainingFragment();
-                Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
+            public void run() {
+                openWorkout.updateUser(user);
             }
         });
-
-        updateProgressBar(userTrainingPlan);
-
-        return root;
     }
 
-    private void updateProgressBar(TrainingPlan trainingPlan) {
-        sessionView.setText("(" + Integer.toString(trainingPlan.finishedSessionSize()) + "/" + trainingPlan.getWorkoutSessionSize()+")");
-        sessionProgressBar.setMax(trainingPlan.getWorkoutSessionSize());
+    private void updateProgressBar(final TrainingPlanSummary trainingPlan) {
+        sessionView.setText("(" + Integer.toString(trainingPlan.getFinishedWorkoutSessionCount()) + "/" + trainingPlan.getWorkoutSessionCount()+")");
+        sessionProgressBar.setMax(trainingPlan.getWorkoutSessionCount());
         sessionProgressBar.post(new Runnable() {
             @Override
             public void run() {
-                sessionProgressBar.setProgress(trainingPlan.finishedSessionSize());
+                sessionProgressBar.setProgress(trainingPlan.getFinishedWorkoutSessionCount());
             }
         });
     }
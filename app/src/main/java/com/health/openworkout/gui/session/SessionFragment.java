@@ -33,6 +33,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Observer;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -40,20 +41,22 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
-import com.health.openworkout.core.datatypes.TrainingPlan;
-import com.health.openworkout.core.datatypes.WorkoutItem;
 import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.datatypes.WorkoutSessionSummary;
+import com.health.openworkout.core.utils.OrderUtils;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
 import com.health.openworkout.gui.datatypes.GenericFragment;
+import com.health.openworkout.gui.datatypes.GenericPagedAdapter;
 import com.health.openworkout.gui.datatypes.GenericSettingsFragment;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class SessionFragment extends GenericFragment {
     private RecyclerView sessionsView;
 
-    private TrainingPlan trainingPlan;
-    private List<WorkoutSession> workoutSessionList;
+    private List<WorkoutSessionSummary> workoutSessionList;
 
     private FloatingActionButton expandableButton;
     private FloatingActionButton addButton;
@@ -113,21 +116,38 @@ public class SessionFragment extends GenericFragment {
                 alert.setPositiveButton(getString(R.string.label_ok), new DialogInterface.OnClickListener() {
                     public void onClick(DialogInterface dialog, int whichButton) {
                         if (!input.getText().toString().isEmpty()) {
-                            int startNr = trainingPlan.getWorkoutSessions().size() + 1;
-                            int offsetNr = Integer.valueOf(input.getText().toString());
-
-                            for (int nr=startNr; nr < (startNr + offsetNr); nr++) {
-                                WorkoutSession workoutSession = new WorkoutSession();
-                                workoutSession.setName(String.format(getString(R.string.day_unit), nr));
-                                workoutSession.setTrainingPlanId(trainingPlan.getTrainingPlanId());
-                                workoutSession.setOrderNr(nr);
-                                trainingPlan.addWorkoutSession(workoutSession);
-                                OpenWorkout.getInstance().insertWorkoutSession(workoutSession);
-                                getAdapter().notifyItemInserted(nr);
-                                sessionsView.scrollToPosition(startNr);
-                            }
-
-                            loadFromDatabase();
+                            final long trainingPlanId = SessionFragmentArgs.fromBundle(getArguments()).getTrainingPlanId();
+                            final int offsetNr = Integer.valueOf(input.getText().toString());
+                            final String dayUnit = getString(R.string.day_unit);
+
+                            // only a page of the sessions is loaded, so count and append on the database
+                            OpenWorkout.getInstance().executeAsync(new Runnable() {
+                                @Override
+                                public void run() {
+                                    OpenWorkout.getInstance().detachTrainingPlan(trainingPlanId);
+                                    int startNr = OpenWorkout.getInstance().getWorkoutSessionCount(trainingPlanId) + 1;
+                                    long orderNr = OpenWorkout.getInstance().getNextWorkoutSessionOrderNr(trainingPlanId);
+                                    List<WorkoutSession> newWorkoutSessionList = new ArrayList<>();
+
+                                    for (int nr=startNr; nr < (startNr + offsetNr); nr++) {
+                                        WorkoutSession workoutSession = new WorkoutSession();
+                                        workoutSession.setName(String.format(dayUnit, nr));
+                                        workoutSession.setTrainingPlanId(trainingPlanId);
+                                        workoutSession.setOrderNr(orderNr);
+                                        orderNr += OrderUtils.GAP;
+                                        newWorkoutSessionList.add(workoutSession);
+                                    }
+
+                                    OpenWorkout.getInstance().insertWorkoutSessions(newWorkoutSessionList);
+                                }
+                            }, new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (getView() != null) {
+                                        loadFromDatabase();
+                                    }
+                                }
+                            });
                         }
                     }
                 });
@@ -147,7 +167,7 @@ public class SessionFragment extends GenericFragment {
 
     @Override
     protected String getTitle() {
-        return trainingPlan.getName();
+        return SessionFragmentArgs.fromBundle(getArguments()).getTitle();
     }
 
     @Override
@@ -167,17 +187,29 @@ public class SessionFragment extends GenericFragment {
 
     @Override
     protected void onSelectCallback(int position) {
-        WorkoutSession workoutSession = workoutSessionList.get(position);
+        final WorkoutSessionSummary workoutSession = workoutSessionList.get(position);
+        final long trainingPlanId = SessionFragmentArgs.fromBundle(getArguments()).getTrainingPlanId();
 
-        SessionFragmentDirections.ActionSessionFragmentToWorkoutFragment action = SessionFragmentDirections.actionSessionFragmentToWorkoutFragment();
-        action.setTitle(workoutSession.getName());
-        action.setSessionWorkoutId(workoutSession.getWorkoutSessionId());
-        Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
+        // a derived plan lists its base plan's sessions, the opened one has to be its own copy
+        OpenWorkout.getInstance().loadAsync(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return OpenWorkout.getInstance().materializeWorkoutSession(trainingPlanId, workoutSession.getWorkoutSessionId());
+            }
+        }).observe(getViewLifecycleOwner(), new Observer<Long>() {
+            @Override
+            public void onChanged(Long workoutSessionId) {
+                SessionFragmentDirections.ActionSessionFragmentToWorkoutFragment action = SessionFragmentDirections.actionSessionFragmentToWorkoutFragment();
+                action.setTitle(workoutSession.getName());
+                action.setSessionWorkoutId(workoutSessionId);
+                Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
+            }
+        });
     }
 
     @Override
     protected void onEditCallback(int position) {
-        WorkoutSession workoutSession = workoutSessionList.get(position);
+        WorkoutSessionSummary workoutSession = workoutSessionList.get(position);
 
         SessionFragmentDirections.ActionSessionsFragmentToSessionSettingsFragment action = SessionFragmentDirections.actionSessionsFragmentToSessionSettingsFragment();
         action.setWorkoutSessionId(workoutSession.getWorkoutSessionId());
@@ -188,56 +220,103 @@ public class SessionFragment extends GenericFragment {
 
     @Override
     protected void onDeleteCallback(int position) {
-        OpenWorkout.getInstance().deleteWorkoutSession(workoutSessionList.get(position));
+        final WorkoutSessionSummary workoutSessionToBeDelete = workoutSessionList.get(position);
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().deleteWorkoutSession(workoutSessionToBeDelete.getWorkoutSessionId());
+            }
+        });
         Toast.makeText(getContext(), String.format(getString(R.string.label_delete_toast), workoutSessionList.get(position).getName()), Toast.LENGTH_SHORT).show();
         getItemList().remove(position);
     }
 
     @Override
     protected void onDuplicateCallback(int position) {
-        WorkoutSession origWorkoutSession = workoutSessionList.get(position);
-        WorkoutSession duplicateWorkoutSession = origWorkoutSession.clone();
+        // the paged sessions are summaries, so the whole session is loaded for the copy
+        final WorkoutSessionSummary origWorkoutSessionSummary = workoutSessionList.get(position);
+        final WorkoutSessionSummary duplicateWorkoutSessionSummary = origWorkoutSessionSummary.clone();
 
-        duplicateWorkoutSession.setWorkoutSessionId(0);
-        workoutSessionList.add(position, duplicateWorkoutSession);
+        duplicateWorkoutSessionSummary.setWorkoutSessionId(0);
+        duplicateWorkoutSessionSummary.setFinished(false);
+        workoutSessionList.add(position, duplicateWorkoutSessionSummary);
         saveToDatabase();
 
-        long workoutSessionId = OpenWorkout.getInstance().insertWorkoutSession(duplicateWorkoutSession);
-        duplicateWorkoutSession.setWorkoutSessionId(workoutSessionId);
+        final long orderNr = duplicateWorkoutSessionSummary.getOrderNr();
+        final long[] workoutSessionId = new long[1];
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                WorkoutSession duplicateWorkoutSession = OpenWorkout.getInstance().getWorkoutSession(origWorkoutSessionSummary.getWorkoutSessionId(), OpenWorkout.PREFETCH.WORKOUT_ITEMS).clone();
+                duplicateWorkoutSession.setWorkoutSessionId(0);
+                duplicateWorkoutSession.setOrderNr(orderNr);
+                workoutSessionId[0] = OpenWorkout.getInstance().insertWorkoutSession(duplicateWorkoutSession);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                duplicateWorkoutSessionSummary.setWorkoutSessionId(workoutSessionId[0]);
+            }
+        });
     }
 
     @Override
     protected void onResetClick() {
-        for (WorkoutSession workoutSession : workoutSessionList) {
-            workoutSession.setFinished(false);
-
-            for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                workoutItem.setFinished(false);
-                OpenWorkout.getInstance().updateWorkoutItem(workoutItem);
-            }
-
-            OpenWorkout.getInstance().updateWorkoutSession(workoutSession);
-        }
+        OpenWorkout.getInstance().resetTrainingPlan(SessionFragmentArgs.fromBundle(getArguments()).getTrainingPlanId());
     }
 
     @Override
     protected void loadFromDatabase() {
-        long trainingPlanId = SessionFragmentArgs.fromBundle(getArguments()).getTrainingPlanId();
-        trainingPlan = OpenWorkout.getInstance().getTrainingPlan(trainingPlanId);
+        final long trainingPlanId = SessionFragmentArgs.fromBundle(getArguments()).getTrainingPlanId();
+
+        // the sessions are only copied for a plan sharing them with other plans once they are going to be edited,
+        // the database executor is serial, so the copy is done before the pages are loaded
+        if (getMode() == FRAGMENT_MODE.EDIT) {
+            OpenWorkout.getInstance().executeAsync(new Runnable() {
+                @Override
+                public void run() {
+                    OpenWorkout.getInstance().detachTrainingPlan(trainingPlanId);
+                }
+            });
+        }
 
-        workoutSessionList = trainingPlan.getWorkoutSessions();
+        workoutSessionList = new ArrayList<>();
 
         sessionsAdapter = new SessionsAdapter(getContext(), workoutSessionList);
         sessionsAdapter.setMode(getMode());
         sessionsView.setAdapter(sessionsAdapter);
+        refreshAdapterListeners();
+
+        sessionsAdapter.setPageSource(new GenericPagedAdapter.PageSource<WorkoutSessionSummary>() {
+            @Override
+            public void loadPage(WorkoutSessionSummary lastWorkoutSession, int pageSize, final GenericPagedAdapter.PageCallback<WorkoutSessionSummary> callback) {
+                OpenWorkout.getInstance().loadWorkoutSessionPage(trainingPlanId, lastWorkoutSession, pageSize).observe(getViewLifecycleOwner(), new Observer<List<WorkoutSessionSummary>>() {
+                    @Override
+                    public void onChanged(List<WorkoutSessionSummary> workoutSessionPage) {
+                        callback.onPageLoaded(workoutSessionPage);
+                    }
+                });
+            }
+        });
+
+        // reordering needs the whole list
+        if (getMode() == FRAGMENT_MODE.EDIT) {
+            sessionsAdapter.loadAll();
+        }
     }
 
     @Override
     protected void saveToDatabase() {
-        for (int i=0; i<workoutSessionList.size(); i++) {
-            workoutSessionList.get(i).setOrderNr(i);
-            OpenWorkout.getInstance().updateWorkoutSession(workoutSessionList.get(i));
-        }
+        final List<WorkoutSessionSummary> changedWorkoutSessionList = OrderUtils.reorder(workoutSessionList);
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().updateWorkoutSessionOrder(changedWorkoutSessionList);
+            }
+        });
     }
 
     private int getNumberOfColumns() {
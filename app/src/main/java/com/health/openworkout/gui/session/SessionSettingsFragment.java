@@ -25,6 +25,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Observer;
 
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
@@ -55,18 +56,34 @@ public class SessionSettingsFragment extends GenericSettingsFragment {
         return workoutSession.getName();
     }
 
+    @Override
+    protected boolean isLoaded() {
+        return workoutSession != null;
+    }
+
     @Override
     protected void loadFromDatabase(SETTING_MODE mode) {
         switch (mode) {
             case ADD:
                 workoutSession = new WorkoutSession();
+                refreshView();
                 break;
             case EDIT:
                 long workoutSessionId = SessionSettingsFragmentArgs.fromBundle(getArguments()).getWorkoutSessionId();
-                workoutSession = OpenWorkout.getInstance().getWorkoutSession(workoutSessionId);
+
+                OpenWorkout.getInstance().loadWorkoutSession(workoutSessionId, OpenWorkout.PREFETCH.NONE).observe(getViewLifecycleOwner(), new Observer<WorkoutSession>() {
+                    @Override
+                    public void onChanged(WorkoutSession loadedWorkoutSession) {
+                        // the loaded session is shared with the cache, the unsaved edits go to a copy
+                        workoutSession = loadedWorkoutSession.copy();
+                        refreshView();
+                    }
+                });
                 break;
         }
+    }
 
+    private void refreshView() {
         if (workoutSession.isFinished()) {
             imgView.setImageResource(R.drawable.ic_session_done);
         } else {
@@ -80,15 +97,27 @@ public class SessionSettingsFragment extends GenericSettingsFragment {
     protected boolean saveToDatabase(SETTING_MODE mode) {
         workoutSession.setName(nameView.getText().toString());
 
+        final WorkoutSession savedWorkoutSession = workoutSession;
+
         switch (mode) {
             case ADD:
                 long trainingPlanId = SessionSettingsFragmentArgs.fromBundle(getArguments()).getTrainingPlanId();
 
                 workoutSession.setTrainingPlanId(trainingPlanId);
-                OpenWorkout.getInstance().insertWorkoutSession(workoutSession);
+                OpenWorkout.getInstance().executeAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        OpenWorkout.getInstance().insertWorkoutSession(savedWorkoutSession);
+                    }
+                });
                 break;
             case EDIT:
-                OpenWorkout.getInstance().updateWorkoutSession(workoutSession);
+                OpenWorkout.getInstance().executeAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        OpenWorkout.getInstance().updateWorkoutSession(savedWorkoutSession);
+                    }
+                });
                 break;
         }
 
@@ -27,17 +27,18 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 
 import com.health.openworkout.R;
-import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.datatypes.WorkoutSessionSummary;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
+import com.health.openworkout.gui.datatypes.GenericPagedAdapter;
 
 import java.util.List;
 
-public class SessionsAdapter extends GenericAdapter<SessionsAdapter.ViewHolder> {
-    private List<WorkoutSession> workoutSessionList;
+public class SessionsAdapter extends GenericPagedAdapter<WorkoutSessionSummary, SessionsAdapter.ViewHolder> {
+    private List<WorkoutSessionSummary> workoutSessionList;
     private Context context;
 
-    public SessionsAdapter(Context aContext, List<WorkoutSession> workoutSessionList) {
-        super(aContext);
+    public SessionsAdapter(Context aContext, List<WorkoutSessionSummary> workoutSessionList) {
+        super(aContext, workoutSessionList);
         this.context = aContext;
         this.workoutSessionList = workoutSessionList;
     }
@@ -54,8 +55,8 @@ public class SessionsAdapter extends GenericAdapter<SessionsAdapter.ViewHolder>
     @Override
     public void onBindViewHolder(@NonNull SessionsAdapter.ViewHolder holder, int position) {
         super.onBindViewHolder(holder, position);
-        WorkoutSession workoutSession = workoutSessionList.get(position);
-        holder.nameView.setText(workoutSession.getName());
+        WorkoutSessionSummary workoutSession = workoutSessionList.get(position);
+        holder.nameView.setText(workoutSession.getName() + "\n" + context.getString(R.string.label_duration_minutes, (workoutSession.getDuration() + 59) / 60));
 
         if (workoutSession.isFinished()) {
             holder.imgView.setImageResource(R.drawable.ic_session_done);
@@ -69,11 +70,6 @@ public class SessionsAdapter extends GenericAdapter<SessionsAdapter.ViewHolder>
         return workoutSessionList.get(position).getWorkoutSessionId();
     }
 
-    @Override
-    public int getItemCount() {
-        return workoutSessionList.size();
-    }
-
     static class ViewHolder extends GenericAdapter.ViewHolder {
         ImageView imgView;
         TextView nameView;
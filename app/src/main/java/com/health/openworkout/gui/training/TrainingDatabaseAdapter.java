@@ -32,7 +32,6 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.health.openworkout.R;
-import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.GitHubFile;
 import com.health.openworkout.core.datatypes.TrainingPlan;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
@@ -47,13 +46,15 @@ import timber.log.Timber;
 
 public class TrainingDatabaseAdapter extends RecyclerView.Adapter<TrainingDatabaseAdapter.ViewHolder> {
     private List<GitHubFile> gitHubFileList;
+    private List<TrainingPlan> trainingPlanList;
     private ViewHolder holder;
     private Context context;
     private static GenericAdapter.OnGenericClickListener onItemClickListener;
 
-    public TrainingDatabaseAdapter(Context aContext, List<GitHubFile> gitHubFileList) {
+    public TrainingDatabaseAdapter(Context aContext, List<GitHubFile> gitHubFileList, List<TrainingPlan> trainingPlanList) {
         this.context = aContext;
         this.gitHubFileList = gitHubFileList;
+        this.trainingPlanList = trainingPlanList;
     }
 
     public void setOnItemClickListener(GenericAdapter.OnGenericClickListener onItemClickListener) {
@@ -89,8 +90,6 @@ public class TrainingDatabaseAdapter extends RecyclerView.Adapter<TrainingDataba
         File packageDir = new File(context.getFilesDir(),  displayName);
 
         if (packageDir.exists()) {
-            List<TrainingPlan> trainingPlanList = OpenWorkout.getInstance().getTrainingPlans();
-
             for (TrainingPlan trainingPlan : trainingPlanList) {
                 if (trainingPlan.getName().equals(displayName)) {
                     downloadCompleted(trainingPlan);
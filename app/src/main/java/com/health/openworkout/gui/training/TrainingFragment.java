@@ -34,6 +34,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
+import androidx.lifecycle.Observer;
 import androidx.navigation.NavDirections;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -43,9 +44,9 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.TrainingPlan;
+import com.health.openworkout.core.datatypes.TrainingPlanSummary;
 import com.health.openworkout.core.datatypes.User;
-import com.health.openworkout.core.datatypes.WorkoutItem;
-import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.utils.OrderUtils;
 import com.health.openworkout.core.utils.PackageUtils;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
 import com.health.openworkout.gui.datatypes.GenericFragment;
@@ -63,8 +64,8 @@ public class TrainingFragment extends GenericFragment {
     private LinearLayout addLayout, localImportLayout, cloudImportLayout;
     private Animation animFabOpen, animFabClose, animFabClock, animFabAntiClock;
     private boolean isExpandable;
-    private List<TrainingPlan> trainingPlanList;
-    private TrainingPlan exportTrainingPlan;
+    private List<TrainingPlanSummary> trainingPlanList;
+    private TrainingPlanSummary exportTrainingPlan;
 
     private TrainingsAdapter trainingsAdapter;
     private FileDialogHelper fileDialogHelper;
@@ -157,19 +158,29 @@ public class TrainingFragment extends GenericFragment {
 
     @Override
     protected void loadFromDatabase() {
-        trainingPlanList = OpenWorkout.getInstance().getTrainingPlans();
+        OpenWorkout.getInstance().loadTrainingPlanSummaries().observe(getViewLifecycleOwner(), new Observer<List<TrainingPlanSummary>>() {
+            @Override
+            public void onChanged(List<TrainingPlanSummary> trainingPlans) {
+                trainingPlanList = trainingPlans;
 
-        trainingsAdapter = new TrainingsAdapter(getContext(), trainingPlanList);
-        trainingsAdapter.setMode(getMode());
-        trainingsView.setAdapter(trainingsAdapter);
+                trainingsAdapter = new TrainingsAdapter(getContext(), trainingPlanList);
+                trainingsAdapter.setMode(getMode());
+                trainingsView.setAdapter(trainingsAdapter);
+                refreshAdapterListeners();
+            }
+        });
     }
 
     @Override
     protected void saveToDatabase() {
-        for (int i=0; i<trainingPlanList.size(); i++) {
-            trainingPlanList.get(i).setOrderNr(i);
-            OpenWorkout.getInstance().updateTrainingPlan(trainingPlanList.get(i));
-        }
+        final List<TrainingPlanSummary> changedTrainingPlanList = OrderUtils.reorder(trainingPlanList);
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().updateTrainingPlanOrder(changedTrainingPlanList);
+            }
+        });
     }
 
     @Override
@@ -189,7 +200,7 @@ public class TrainingFragment extends GenericFragment {
 
     @Override
     protected void onSelectCallback(int position) {
-        TrainingPlan trainingPlan = trainingPlanList.get(position);
+        TrainingPlanSummary trainingPlan = trainingPlanList.get(position);
 
         TrainingFragmentDirections.ActionTrainingFragmentToSessionFragment action = TrainingFragmentDirections.actionTrainingFragmentToSessionFragment();
         action.setTitle(trainingPlan.getName());
@@ -199,7 +210,7 @@ public class TrainingFragment extends GenericFragment {
 
     @Override
     protected void onEditCallback(int position) {
-        TrainingPlan trainingPlan = trainingPlanList.get(position);
+        TrainingPlanSummary trainingPlan = trainingPlanList.get(position);
 
         TrainingFragmentDirections.ActionTrainingFragmentToTrainingSettingsFragment action = TrainingFragmentDirections.actionTrainingFragmentToTrainingSettingsFragment();
         action.setTrainingPlanId(trainingPlan.getTrainingPlanId());
@@ -210,51 +221,61 @@ public class TrainingFragment extends GenericFragment {
 
     @Override
     protected void onDeleteCallback(int position) {
-        User user = OpenWorkout.getInstance().getCurrentUser();
+        final User user = OpenWorkout.getInstance().getCurrentUser();
         long userTrainingPlanId = user.getTrainingsPlanId();
-        TrainingPlan trainingPlanToBeDelete = trainingPlanList.get(position);
+        final TrainingPlanSummary trainingPlanToBeDelete = trainingPlanList.get(position);
+        final boolean isUserTrainingPlan = (userTrainingPlanId == trainingPlanToBeDelete.getTrainingPlanId());
 
-        if (userTrainingPlanId == trainingPlanToBeDelete.getTrainingPlanId()) {
+        if (isUserTrainingPlan) {
             user.setTrainingsPlanId(-1);
-            OpenWorkout.getInstance().updateUser(user);
         }
 
         Toast.makeText(getContext(), String.format(getString(R.string.label_delete_toast), trainingPlanToBeDelete.getName()), Toast.LENGTH_SHORT).show();
-        OpenWorkout.getInstance().deleteTrainingPlan(trainingPlanList.get(position));
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                if (isUserTrainingPlan) {
+                    OpenWorkout.getInstance().updateUser(user);
+                }
+
+                OpenWorkout.getInstance().deleteTrainingPlan(trainingPlanToBeDelete.getTrainingPlanId());
+            }
+        });
         trainingPlanList.remove(position);
     }
 
     @Override
     protected void onDuplicateCallback(int position) {
-        TrainingPlan origTrainingPlan = trainingPlanList.get(position);
-        TrainingPlan duplicateTrainingPlan = origTrainingPlan.clone();
-
-        duplicateTrainingPlan.setTrainingPlanId(0);
-        trainingPlanList.add(position, duplicateTrainingPlan);
+        // the duplicate is derived from the original plan, its sessions are only copied once it gets trained or edited
+        final TrainingPlanSummary origTrainingPlanSummary = trainingPlanList.get(position);
+        final TrainingPlanSummary duplicateTrainingPlanSummary = origTrainingPlanSummary.clone();
+
+        // the progress isn't copied
+        duplicateTrainingPlanSummary.setTrainingPlanId(0);
+        duplicateTrainingPlanSummary.setCountFinishedTraining(0);
+        duplicateTrainingPlanSummary.setFinishedWorkoutSessionCount(0);
+        trainingPlanList.add(position, duplicateTrainingPlanSummary);
         saveToDatabase();
 
-        long trainingPlanId = OpenWorkout.getInstance().insertTrainingPlan(duplicateTrainingPlan);
-        duplicateTrainingPlan.setTrainingPlanId(trainingPlanId);
+        final long orderNr = duplicateTrainingPlanSummary.getOrderNr();
+        final long[] trainingPlanId = new long[1];
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                trainingPlanId[0] = OpenWorkout.getInstance().deriveTrainingPlan(origTrainingPlanSummary.getTrainingPlanId(), orderNr);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                duplicateTrainingPlanSummary.setTrainingPlanId(trainingPlanId[0]);
+            }
+        });
     }
 
     @Override
     protected void onResetClick() {
-        for (TrainingPlan trainingPlan : trainingPlanList) {
-            trainingPlan.setCountFinishedTraining(0);
-
-            for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
-                workoutSession.setFinished(false);
-
-                for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                    workoutItem.setFinished(false);
-                    OpenWorkout.getInstance().updateWorkoutItem(workoutItem);
-                }
-
-                OpenWorkout.getInstance().updateWorkoutSession(workoutSession);
-            }
-
-            OpenWorkout.getInstance().updateTrainingPlan(trainingPlan);
-        }
+        OpenWorkout.getInstance().resetTrainingPlans();
     }
 
     @Override
@@ -298,10 +319,37 @@ public class TrainingFragment extends GenericFragment {
 
             switch (requestCode) {
                 case FileDialogHelper.REQUEST_IMPORT_FILE_DIALOG:
-                    packageUtils.importTrainingPlan(uri);
+                    OpenWorkout.getInstance().executeAsync(new Runnable() {
+                        @Override
+                        public void run() {
+                            packageUtils.importTrainingPlan(uri);
+                        }
+                    }, new Runnable() {
+                        @Override
+                        public void run() {
+                            if (getView() != null) {
+                                loadFromDatabase();
+                            }
+                        }
+                    });
                     break;
                 case FileDialogHelper.REQUEST_EXPORT_FILE_DIALOG:
-                    packageUtils.exportTrainingPlan(exportTrainingPlan, uri);
+                    final long exportTrainingPlanId = exportTrainingPlan.getTrainingPlanId();
+
+                    // only the plan is loaded on the database executor, writing the media files doesn't hold up the other database access
+                    OpenWorkout.getInstance().executeAsync(new Runnable() {
+                        @Override
+                        public void run() {
+                            final TrainingPlan trainingPlan = OpenWorkout.getInstance().getTrainingPlan(exportTrainingPlanId, OpenWorkout.PREFETCH.WORKOUT_ITEMS);
+
+                            OpenWorkout.getInstance().executeFileAsync(new Runnable() {
+                                @Override
+                                public void run() {
+                                    packageUtils.exportTrainingPlan(trainingPlan, uri);
+                                }
+                            });
+                        }
+                    });
                     break;
 
             }
@@ -29,6 +29,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Observer;
 
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
@@ -75,19 +76,35 @@ public class TrainingSettingsFragment extends GenericSettingsFragment {
         return trainingPlan.getName();
     }
 
+    @Override
+    protected boolean isLoaded() {
+        return trainingPlan != null;
+    }
+
     @Override
     protected void loadFromDatabase(SETTING_MODE mode) {
         switch (mode) {
             case ADD:
                 trainingPlan = new TrainingPlan();
+                trainingPlan.setName("<" + getString(R.string.label_new_training_plan) + ">");
+                refreshView();
                 break;
             case EDIT:
                 long trainingPlanId = TrainingSettingsFragmentArgs.fromBundle(getArguments()).getTrainingPlanId();
 
-                trainingPlan = OpenWorkout.getInstance().getTrainingPlan(trainingPlanId);
+                OpenWorkout.getInstance().loadTrainingPlan(trainingPlanId, OpenWorkout.PREFETCH.NONE).observe(getViewLifecycleOwner(), new Observer<TrainingPlan>() {
+                    @Override
+                    public void onChanged(TrainingPlan loadedTrainingPlan) {
+                        // the loaded plan is shared with the cache, the unsaved edits go to a copy
+                        trainingPlan = loadedTrainingPlan.copy();
+                        refreshView();
+                    }
+                });
                 break;
         }
+    }
 
+    private void refreshView() {
         try {
             if (trainingPlan.isImagePathExternal()) {
                 Uri imgUri = Uri.parse(trainingPlan.getImagePath());
@@ -114,12 +131,24 @@ public class TrainingSettingsFragment extends GenericSettingsFragment {
     protected boolean saveToDatabase(SETTING_MODE mode) {
         trainingPlan.setName(nameView.getText().toString());
 
+        final TrainingPlan savedTrainingPlan = trainingPlan;
+
         switch (mode) {
             case ADD:
-                OpenWorkout.getInstance().insertTrainingPlan(trainingPlan);
+                OpenWorkout.getInstance().executeAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        OpenWorkout.getInstance().insertTrainingPlan(savedTrainingPlan);
+                    }
+                });
                 break;
             case EDIT:
-                OpenWorkout.getInstance().updateTrainingPlan(trainingPlan);
+                OpenWorkout.getInstance().executeAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        OpenWorkout.getInstance().updateTrainingPlan(savedTrainingPlan);
+                    }
+                });
                 break;
         }
 
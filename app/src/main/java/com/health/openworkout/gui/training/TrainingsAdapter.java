@@ -30,10 +30,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 
 import com.health.openworkout.R;
-import com.health.openworkout.core.OpenWorkout;
-import com.health.openworkout.core.datatypes.TrainingPlan;
-import com.health.openworkout.core.datatypes.WorkoutItem;
-import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.datatypes.TrainingPlanSummary;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
 
 import java.io.IOException;
@@ -43,10 +40,10 @@ import java.util.List;
 import timber.log.Timber;
 
 public class TrainingsAdapter extends GenericAdapter<TrainingsAdapter.ViewHolder> {
-    private List<TrainingPlan> trainingPlanList;
+    private List<TrainingPlanSummary> trainingPlanList;
     private Context context;
 
-    public TrainingsAdapter(Context aContext, List<TrainingPlan> trainingPlanList) {
+    public TrainingsAdapter(Context aContext, List<TrainingPlanSummary> trainingPlanList) {
         super(aContext);
         this.context = aContext;
         this.trainingPlanList = trainingPlanList;
@@ -64,7 +61,7 @@ public class TrainingsAdapter extends GenericAdapter<TrainingsAdapter.ViewHolder
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         super.onBindViewHolder(holder, position);
-        TrainingPlan trainingPlan = trainingPlanList.get(position);
+        final TrainingPlanSummary trainingPlan = trainingPlanList.get(position);
         holder.nameView.setText(trainingPlan.getName());
 
         try {
@@ -84,23 +81,6 @@ public class TrainingsAdapter extends GenericAdapter<TrainingsAdapter.ViewHolder
                 Timber.e(ex);
             }
 
-        if (!trainingPlan.getWorkoutSessions().isEmpty() &&
-                trainingPlan.getWorkoutSessionSize() == trainingPlan.finishedSessionSize()) {
-
-            trainingPlan.setCountFinishedTraining(trainingPlan.getCountFinishedTraining() + 1);
-
-            for (WorkoutSession workoutSession : trainingPlan.getWorkoutSessions()) {
-                workoutSession.setFinished(false);
-
-                for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                    workoutItem.setFinished(false);
-                    OpenWorkout.getInstance().updateWorkoutItem(workoutItem);
-                }
-
-                OpenWorkout.getInstance().updateWorkoutSession(workoutSession);
-            }
-        }
-
         if (trainingPlan.getCountFinishedTraining() == 0) {
             holder.trophyView.setBackgroundResource(R.drawable.ic_trophy_disabled);
         } else {
@@ -108,7 +88,7 @@ public class TrainingsAdapter extends GenericAdapter<TrainingsAdapter.ViewHolder
             holder.trophyView.setText(Integer.toString(trainingPlan.getCountFinishedTraining()));
         }
 
-        holder.detailedView.setText(String.format(context.getString(R.string.label_session_size_completed), trainingPlan.finishedSessionSize(), trainingPlan.getWorkoutSessionSize()));
+        holder.detailedView.setText(String.format(context.getString(R.string.label_session_size_completed), trainingPlan.getFinishedWorkoutSessionCount(), trainingPlan.getWorkoutSessionCount()));
 
         switch (getMode()) {
             case VIEW:
@@ -27,10 +27,12 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.health.openworkout.R;
+import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.GitHubFile;
 import com.health.openworkout.core.datatypes.TrainingPlan;
 import com.health.openworkout.core.utils.PackageUtils;
@@ -38,6 +40,7 @@ import com.health.openworkout.gui.datatypes.GenericAdapter;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class TrainingsDatabaseFragment extends Fragment {
     private RecyclerView trainingsView;
@@ -71,29 +74,45 @@ public class TrainingsDatabaseFragment extends Fragment {
             @Override
             public void onGitHubFileList(List<GitHubFile> receivedGitHubFileList) {
                 gitHubFileList = receivedGitHubFileList;
-                trainingDatabaseAdapter = new TrainingDatabaseAdapter(getContext(), gitHubFileList);
 
-                trainingDatabaseAdapter.setOnItemClickListener(new GenericAdapter.OnGenericClickListener() {
+                OpenWorkout.getInstance().loadTrainingPlans(OpenWorkout.PREFETCH.NONE).observe(getViewLifecycleOwner(), new Observer<List<TrainingPlan>>() {
                     @Override
-                    public void onItemClick(int position, View v) {
-                        GitHubFile gitHubFile = gitHubFileList.get(position);
-                        packageUtils.downloadFile(gitHubFile);
-                        trainingDatabaseAdapter.notifyItemChanged(position);
+                    public void onChanged(List<TrainingPlan> trainingPlanList) {
+                        trainingDatabaseAdapter = new TrainingDatabaseAdapter(getContext(), gitHubFileList, trainingPlanList);
+
+                        trainingDatabaseAdapter.setOnItemClickListener(new GenericAdapter.OnGenericClickListener() {
+                            @Override
+                            public void onItemClick(int position, View v) {
+                                GitHubFile gitHubFile = gitHubFileList.get(position);
+                                packageUtils.downloadFile(gitHubFile);
+                                trainingDatabaseAdapter.notifyItemChanged(position);
+                            }
+                        });
+
+                        trainingsView.setAdapter(trainingDatabaseAdapter);
+                        progressBar.setVisibility(View.GONE);
                     }
                 });
-
-                trainingsView.setAdapter(trainingDatabaseAdapter);
-                progressBar.setVisibility(View.GONE);
             }
 
             @Override
-            public void onGitHubDownloadFile(File filename) {
+            public void onGitHubDownloadFile(final File filename) {
                 getActivity().runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
-                        TrainingPlan trainingPlan = packageUtils.importTrainingPlan(filename);
-
-                        trainingDatabaseAdapter.downloadCompleted(trainingPlan);
+                        OpenWorkout.getInstance().loadAsync(new Callable<TrainingPlan>() {
+                            @Override
+                            public TrainingPlan call() {
+                                return packageUtils.importTrainingPlan(filename);
+                            }
+                        }).observe(getViewLifecycleOwner(), new Observer<TrainingPlan>() {
+                            @Override
+                            public void onChanged(TrainingPlan trainingPlan) {
+                                if (trainingPlan != null) {
+                                    trainingDatabaseAdapter.downloadCompleted(trainingPlan);
+                                }
+                            }
+                        });
                     }
                 });
             }
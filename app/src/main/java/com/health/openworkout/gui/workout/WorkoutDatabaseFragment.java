@@ -24,6 +24,7 @@ import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -57,8 +58,16 @@ public class WorkoutDatabaseFragment extends Fragment {
     }
 
     protected void loadFromDatabase() {
-        workoutItemList = OpenWorkout.getInstance().getAllUniqueWorkoutItems();
+        OpenWorkout.getInstance().loadAllUniqueWorkoutItems().observe(getViewLifecycleOwner(), new Observer<List<WorkoutItem>>() {
+            @Override
+            public void onChanged(List<WorkoutItem> uniqueWorkoutItemList) {
+                workoutItemList = uniqueWorkoutItemList;
+                setAdapter();
+            }
+        });
+    }
 
+    private void setAdapter() {
         workoutsDatabaseAdapter = new WorkoutsDatabaseAdapter(getContext(), workoutItemList);
 
         workoutsDatabaseAdapter.setOnItemClickListener(new GenericAdapter.OnGenericClickListener() {
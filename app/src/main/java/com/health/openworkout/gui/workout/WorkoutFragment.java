@@ -27,6 +27,7 @@ import android.widget.LinearLayout;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Observer;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -35,17 +36,19 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.WorkoutItem;
-import com.health.openworkout.core.datatypes.WorkoutSession;
+import com.health.openworkout.core.datatypes.WorkoutItemSummary;
+import com.health.openworkout.core.utils.OrderUtils;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
 import com.health.openworkout.gui.datatypes.GenericFragment;
+import com.health.openworkout.gui.datatypes.GenericPagedAdapter;
 import com.health.openworkout.gui.datatypes.GenericSettingsFragment;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class WorkoutFragment extends GenericFragment {
     private RecyclerView workoutsView;
-    private WorkoutSession workoutSession;
-    private List<WorkoutItem> workoutItemList;
+    private List<WorkoutItemSummary> workoutItemList;
 
     private FloatingActionButton expandableButton;
     private FloatingActionButton addButton;
@@ -104,6 +107,8 @@ public class WorkoutFragment extends GenericFragment {
             public void onClick(View v) {
                 final long workoutSessionId = WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
 
+                detachWorkoutSession();
+
                 WorkoutFragmentDirections.ActionWorkoutFramgentToWorkoutSettingsFragment action = WorkoutFragmentDirections.actionWorkoutFramgentToWorkoutSettingsFragment();
                 action.setMode(GenericSettingsFragment.SETTING_MODE.ADD);
                 action.setTitle(getString(R.string.label_add));
@@ -116,8 +121,10 @@ public class WorkoutFragment extends GenericFragment {
         addFromDatabaseButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                detachWorkoutSession();
+
                 WorkoutFragmentDirections.ActionWorkoutFragmentToWorkoutDatabaseFragment action = WorkoutFragmentDirections.actionWorkoutFragmentToWorkoutDatabaseFragment();
-                action.setSessionWorkoutId(workoutSession.getWorkoutSessionId());
+                action.setSessionWorkoutId(WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId());
                 Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
             }
         });
@@ -129,27 +136,52 @@ public class WorkoutFragment extends GenericFragment {
 
     @Override
     protected String getTitle() {
-        return workoutSession.getName();
+        return WorkoutFragmentArgs.fromBundle(getArguments()).getTitle();
     }
 
     @Override
     protected void loadFromDatabase() {
         final long workoutSessionId = WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
-        workoutSession = OpenWorkout.getInstance().getWorkoutSession(workoutSessionId);
 
-        workoutItemList = workoutSession.getWorkoutItems();
+        if (getMode() == FRAGMENT_MODE.EDIT) {
+            detachWorkoutSession();
+        }
+
+        workoutItemList = new ArrayList<>();
 
         workoutsAdapter = new WorkoutsAdapter(getContext(), workoutItemList);
         workoutsAdapter.setMode(getMode());
         workoutsView.setAdapter(workoutsAdapter);
+        refreshAdapterListeners();
+
+        workoutsAdapter.setPageSource(new GenericPagedAdapter.PageSource<WorkoutItemSummary>() {
+            @Override
+            public void loadPage(WorkoutItemSummary lastWorkoutItem, int pageSize, final GenericPagedAdapter.PageCallback<WorkoutItemSummary> callback) {
+                OpenWorkout.getInstance().loadWorkoutItemPage(workoutSessionId, lastWorkoutItem, pageSize).observe(getViewLifecycleOwner(), new Observer<List<WorkoutItemSummary>>() {
+                    @Override
+                    public void onChanged(List<WorkoutItemSummary> workoutItemPage) {
+                        callback.onPageLoaded(workoutItemPage);
+                    }
+                });
+            }
+        });
+
+        // reordering needs the whole list
+        if (getMode() == FRAGMENT_MODE.EDIT) {
+            workoutsAdapter.loadAll();
+        }
     }
 
     @Override
     protected void saveToDatabase() {
-        for (int i=0; i<workoutItemList.size(); i++) {
-            workoutItemList.get(i).setOrderNr(i);
-            OpenWorkout.getInstance().updateWorkoutItem(workoutItemList.get(i));
-        }
+        final List<WorkoutItemSummary> changedWorkoutItemList = OrderUtils.reorder(workoutItemList);
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().updateWorkoutItemOrder(changedWorkoutItemList);
+            }
+        });
     }
 
     @Override
@@ -169,21 +201,21 @@ public class WorkoutFragment extends GenericFragment {
 
     @Override
     protected void onSelectCallback(int position) {
-        WorkoutItem workoutItem = workoutItemList.get(position);
+        WorkoutItemSummary workoutItem = workoutItemList.get(position);
 
         WorkoutFragmentDirections.ActionWorkoutFragmentToWorkoutSlideFragment action = WorkoutFragmentDirections.actionWorkoutFragmentToWorkoutSlideFragment();
-        action.setTitle(workoutSession.getName());
-        action.setSessionWorkoutId(workoutSession.getWorkoutSessionId());
+        action.setTitle(getTitle());
+        action.setSessionWorkoutId(WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId());
         action.setWorkoutItemId(workoutItem.getWorkoutItemId());
         Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
     }
 
     @Override
     protected void onEditCallback(int position) {
-        WorkoutItem workoutItem = workoutItemList.get(position);
+        WorkoutItemSummary workoutItem = workoutItemList.get(position);
 
         WorkoutFragmentDirections.ActionWorkoutFramgentToWorkoutSettingsFragment action = WorkoutFragmentDirections.actionWorkoutFramgentToWorkoutSettingsFragment();
-        action.setSessionWorkoutId(workoutSession.getWorkoutSessionId());
+        action.setSessionWorkoutId(WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId());
         action.setWorkoutItemId(workoutItem.getWorkoutItemId());
         action.setMode(GenericSettingsFragment.SETTING_MODE.EDIT);
         action.setTitle(getString(R.string.label_edit));
@@ -192,29 +224,62 @@ public class WorkoutFragment extends GenericFragment {
 
     @Override
     protected void onDeleteCallback(int position) {
-        Toast.makeText(getContext(), String.format(getString(R.string.label_delete_toast), workoutItemList.get(position).getName()), Toast.LENGTH_SHORT).show();
-        OpenWorkout.getInstance().deleteWorkoutItem(workoutItemList.get(position));
+        final WorkoutItemSummary workoutItemToBeDelete = workoutItemList.get(position);
+
+        Toast.makeText(getContext(), String.format(getString(R.string.label_delete_toast), workoutItemToBeDelete.getName()), Toast.LENGTH_SHORT).show();
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().deleteWorkoutItem(workoutItemToBeDelete.getWorkoutItemId());
+            }
+        });
         workoutItemList.remove(position);
     }
 
     @Override
     protected void onDuplicateCallback(int position) {
-        WorkoutItem origWorkoutItem = workoutItemList.get(position);
-        WorkoutItem duplicatedWorkoutItem = origWorkoutItem.clone();
+        // the list only holds summaries, so the whole workout item is loaded for the copy
+        final WorkoutItemSummary origWorkoutItemSummary = workoutItemList.get(position);
+        final WorkoutItemSummary duplicatedWorkoutItemSummary = origWorkoutItemSummary.clone();
 
-        duplicatedWorkoutItem.setWorkoutItemId(0);
-        workoutItemList.add(position, duplicatedWorkoutItem);
+        duplicatedWorkoutItemSummary.setWorkoutItemId(0);
+        duplicatedWorkoutItemSummary.setFinished(false);
+        workoutItemList.add(position, duplicatedWorkoutItemSummary);
         saveToDatabase();
 
-        long workoutItemId = OpenWorkout.getInstance().insertWorkoutItem(duplicatedWorkoutItem);
-        duplicatedWorkoutItem.setWorkoutItemId(workoutItemId);
+        final long orderNr = duplicatedWorkoutItemSummary.getOrderNr();
+        final long[] workoutItemId = new long[1];
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                WorkoutItem duplicatedWorkoutItem = OpenWorkout.getInstance().getWorkoutItem(origWorkoutItemSummary.getWorkoutItemId()).clone();
+                duplicatedWorkoutItem.setWorkoutItemId(0);
+                duplicatedWorkoutItem.setOrderNr(orderNr);
+                workoutItemId[0] = OpenWorkout.getInstance().insertWorkoutItem(duplicatedWorkoutItem);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                duplicatedWorkoutItemSummary.setWorkoutItemId(workoutItemId[0]);
+            }
+        });
+    }
+
+    // the database executor is serial, so the copy is done before the pending load or write
+    private void detachWorkoutSession() {
+        final long workoutSessionId = WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
+
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().detachWorkoutSession(workoutSessionId);
+            }
+        });
     }
 
     @Override
     protected void onResetClick() {
-        for (WorkoutItem workoutItem : workoutItemList) {
-            workoutItem.setFinished(false);
-            OpenWorkout.getInstance().updateWorkoutItem(workoutItem);
-        }
+        OpenWorkout.getInstance().resetWorkoutSession(WorkoutFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId());
     }
 }
@@ -35,11 +35,13 @@ import android.widget.VideoView;
 
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
+import androidx.lifecycle.Observer;
 import androidx.navigation.Navigation;
 
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
 import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.utils.OrderUtils;
 import com.health.openworkout.gui.datatypes.GenericSettingsFragment;
 import com.health.openworkout.gui.utils.FileDialogHelper;
 
@@ -149,23 +151,41 @@ public class WorkoutSettingsFragment extends GenericSettingsFragment {
     }
 
     @Override
-    protected void loadFromDatabase(SETTING_MODE mode) {
+    protected boolean isLoaded() {
+        return workoutItem != null;
+    }
+
+    @Override
+    protected void loadFromDatabase(final SETTING_MODE mode) {
         long workoutItemId = WorkoutSettingsFragmentArgs.fromBundle(getArguments()).getWorkoutItemId();
 
-        switch (mode) {
-            case ADD:
-                if (workoutItemId != -1L) {
-                    workoutItem = OpenWorkout.getInstance().getWorkoutItem(workoutItemId).clone();
-                    workoutItem.setWorkoutItemId(0);
-                } else {
-                    workoutItem = new WorkoutItem();
-                }
-                break;
-            case EDIT:
-                workoutItem = OpenWorkout.getInstance().getWorkoutItem(workoutItemId);
-                break;
+        if (mode == SETTING_MODE.ADD && workoutItemId == -1L) {
+            workoutItem = new WorkoutItem();
+            workoutItem.setName("<" + getString(R.string.label_new_workout_item) + ">");
+            workoutItem.setDescription("<" + getString(R.string.label_new_workout_item) + ">");
+            refreshView();
+            return;
         }
 
+        OpenWorkout.getInstance().loadWorkoutItem(workoutItemId).observe(getViewLifecycleOwner(), new Observer<WorkoutItem>() {
+            @Override
+            public void onChanged(WorkoutItem loadedWorkoutItem) {
+                switch (mode) {
+                    case ADD:
+                        workoutItem = loadedWorkoutItem.clone();
+                        workoutItem.setWorkoutItemId(0);
+                        break;
+                    case EDIT:
+                        workoutItem = loadedWorkoutItem;
+                        break;
+                }
+
+                refreshView();
+            }
+        });
+    }
+
+    private void refreshView() {
         try {
             if (workoutItem.isImagePathExternal()) {
                 imgView.setImageURI(Uri.parse(workoutItem.getImagePath()));
@@ -273,17 +293,29 @@ public class WorkoutSettingsFragment extends GenericSettingsFragment {
         workoutItem.setTimeMode(timeModeView.isChecked());
         workoutItem.setVideoMode(videoModeView.isChecked());
 
+        final WorkoutItem savedWorkoutItem = workoutItem;
+
         switch (mode) {
             case ADD:
-                long workoutSessionId = WorkoutSettingsFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
+                final long workoutSessionId = WorkoutSettingsFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
 
                 workoutItem.setWorkoutSessionId(workoutSessionId);
-                workoutItem.setOrderNr(OpenWorkout.getInstance().getWorkoutSession(workoutSessionId).getWorkoutItems().size()+1);
-                OpenWorkout.getInstance().insertWorkoutItem(workoutItem);
+                OpenWorkout.getInstance().executeAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        savedWorkoutItem.setOrderNr(OrderUtils.nextOrderNr(OpenWorkout.getInstance().getWorkoutSession(workoutSessionId, OpenWorkout.PREFETCH.WORKOUT_ITEMS).getWorkoutItems()));
+                        OpenWorkout.getInstance().insertWorkoutItem(savedWorkoutItem);
+                    }
+                });
                 Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigateUp();
                 break;
             case EDIT:
-                OpenWorkout.getInstance().updateWorkoutItem(workoutItem);
+                OpenWorkout.getInstance().executeAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        OpenWorkout.getInstance().updateWorkoutItem(savedWorkoutItem);
+                    }
+                });
                 break;
         }
 
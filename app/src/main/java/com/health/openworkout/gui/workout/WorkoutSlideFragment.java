@@ -44,13 +44,16 @@ import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.navigation.Navigation;
 import androidx.preference.PreferenceManager;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
+import com.health.openworkout.core.SessionTimeline;
 import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutLog;
 import com.health.openworkout.core.datatypes.WorkoutSession;
 import com.health.openworkout.gui.utils.SoundUtils;
 
@@ -81,6 +84,8 @@ public class WorkoutSlideFragment extends Fragment {
     private CountDownTimer countDownTimer;
     private boolean isCountdownTimerStopped;
     private Calendar startTime;
+    private long pauseStartTime;
+    private long pausedTime;
     private int remainingSec;
     private int halftimeSec;
     private SoundUtils soundUtils;
@@ -88,7 +93,8 @@ public class WorkoutSlideFragment extends Fragment {
     private boolean isSpeechWorkoutState;
 
     private WorkoutSession workoutSession;
-    private long workoutItemOrderNr;
+    private SessionTimeline sessionTimeline;
+    private int workoutItemIndex;
     private WorkoutItem nextWorkoutItem;
     private WORKOUT_STATE workoutState;
     private long workoutItemIdFromFragment;
@@ -160,15 +166,18 @@ public class WorkoutSlideFragment extends Fragment {
             @Override
             public void onClick(View v) {
                 // if rep mode and in running workout state then ignore any clicks
-                if (!nextWorkoutItem.isTimeMode() && workoutState == WORKOUT_STATE.START) {
+                if (nextWorkoutItem == null || !nextWorkoutItem.isTimeMode() && workoutState == WORKOUT_STATE.START) {
                     return;
                 }
 
                 if (countDownTimer != null) {
                     if (isCountdownTimerStopped) {
                         resumeCountdownTimer();
+                        pausedTime += System.currentTimeMillis() - pauseStartTime;
+                        pauseStartTime = 0;
                     } else {
                         pauseCountdownTimer();
+                        pauseStartTime = System.currentTimeMillis();
                     }
                 }
             }
@@ -197,13 +206,27 @@ public class WorkoutSlideFragment extends Fragment {
         isCountdownTimerStopped = false;
         long workoutSessionId = WorkoutSlideFragmentArgs.fromBundle(getArguments()).getSessionWorkoutId();
         workoutItemIdFromFragment = WorkoutSlideFragmentArgs.fromBundle(getArguments()).getWorkoutItemId();
-        workoutSession = OpenWorkout.getInstance().getWorkoutSession(workoutSessionId);
 
-        workoutState = WORKOUT_STATE.INIT;
-        nextWorkoutState();
+        OpenWorkout.getInstance().loadWorkoutSession(workoutSessionId, OpenWorkout.PREFETCH.WORKOUT_ITEMS).observe(getViewLifecycleOwner(), new Observer<WorkoutSession>() {
+            @Override
+            public void onChanged(WorkoutSession loadedWorkoutSession) {
+                // the loaded session is shared with the cache, the progress of this run goes to a copy
+                workoutSession = loadedWorkoutSession.copy();
+                sessionTimeline = new SessionTimeline(workoutSession);
+                workoutItemIndex = -1;
+
+                workoutState = WORKOUT_STATE.INIT;
+                nextWorkoutState();
+            }
+        });
     }
 
     private void nextWorkoutState() {
+        // ignore any clicks until the workout session is loaded
+        if (workoutState == null) {
+            return;
+        }
+
         isCountdownTimerStopped = false;
         playResumeView.setImageResource(R.drawable.ic_play);
         soundUtils.flush();
@@ -233,33 +256,33 @@ public class WorkoutSlideFragment extends Fragment {
     private void nextWorkout() {
         // if no workout item was selected use the next not finished workout item in the session list
         if (workoutItemIdFromFragment == -1L) {
-            // Get current orderNr before updating to nextWorkoutItem
-            if (nextWorkoutItem == null) {
-                workoutItemOrderNr = 0;
-            } else {
-                workoutItemOrderNr = nextWorkoutItem.getOrderNr();
-            }
-            if (workoutSession.getNextWorkoutItem(workoutItemOrderNr) == null) {
+            int nextWorkoutItemIndex = sessionTimeline.getNextUnfinishedItem(workoutItemIndex);
+
+            if (nextWorkoutItemIndex == -1) {
                 onFinishSession();
                 return;
             }
 
-            nextWorkoutItem = workoutSession.getNextWorkoutItem(workoutItemOrderNr);
+            workoutItemIndex = nextWorkoutItemIndex;
         } else {
             // otherwise use the workout item as a starting point which was selected in the workout fragment
-            for (WorkoutItem workoutItem : workoutSession.getWorkoutItems()) {
-                if (workoutItem.getWorkoutItemId() == workoutItemIdFromFragment) {
-                    nextWorkoutItem = workoutItem;
+            for (int i=0; i<sessionTimeline.getItemCount(); i++) {
+                if (sessionTimeline.getWorkoutItem(i).getWorkoutItemId() == workoutItemIdFromFragment) {
+                    workoutItemIndex = i;
                     workoutItemIdFromFragment = -1L;
                     break;
                 }
             }
         }
 
-        int workoutItemPos = workoutSession.getWorkoutItems().indexOf(nextWorkoutItem) + 1;
+        nextWorkoutItem = sessionTimeline.getWorkoutItem(workoutItemIndex);
+        int workoutItemPos = workoutItemIndex + 1;
+        int remainingMin = (sessionTimeline.getRemainingDuration(sessionTimeline.getFirstPhase(workoutItemIndex), 0) + 59) / 60;
         startTime = Calendar.getInstance();
+        pauseStartTime = 0;
+        pausedTime = 0;
 
-        nameView.setText(nextWorkoutItem.getName() + " (" + workoutItemPos + "/" + workoutSession.getWorkoutItems().size() + ")");
+        nameView.setText(nextWorkoutItem.getName() + " (" + workoutItemPos + "/" + sessionTimeline.getItemCount() + ", " + getString(R.string.label_duration_minutes, remainingMin) + ")");
 
         if (isSpeechWorkoutState && workoutState != WORKOUT_STATE.INIT) {
             soundUtils.textToSpeech(getContext().getString(R.string.speak_next_workout) + " " + nextWorkoutItem.getName());
@@ -400,15 +423,38 @@ public class WorkoutSlideFragment extends Fragment {
         nextWorkoutItem.setElapsedTime(diffTimeInSec);
 
         nextWorkoutItem.setFinished(true);
-        OpenWorkout.getInstance().updateWorkoutItem(nextWorkoutItem);
+        sessionTimeline.finishItem(workoutItemIndex);
+
+        if (pauseStartTime != 0) {
+            pausedTime += stopTime.getTimeInMillis() - pauseStartTime;
+            pauseStartTime = 0;
+        }
+
+        final WorkoutLog workoutLog = new WorkoutLog();
+        workoutLog.setTimestamp(stopTime.getTimeInMillis());
+        workoutLog.setTrainingPlanId(workoutSession.getTrainingPlanId());
+        workoutLog.setWorkoutSessionId(workoutSession.getWorkoutSessionId());
+        workoutLog.setWorkoutItemId(nextWorkoutItem.getWorkoutItemId());
+        workoutLog.setPausedTime(Math.min(pausedTime / 1000L, diffTimeInSec));
+        workoutLog.setActiveTime(diffTimeInSec - workoutLog.getPausedTime());
+
+        final WorkoutItem finishedWorkoutItem = nextWorkoutItem;
+        OpenWorkout.getInstance().executeAsync(new Runnable() {
+            @Override
+            public void run() {
+                OpenWorkout.getInstance().finishWorkoutItem(finishedWorkoutItem);
+                OpenWorkout.getInstance().insertWorkoutLog(workoutLog);
+            }
+        });
     }
 
     private void onFinishSession() {
-        workoutSession.setFinished(true);
-        OpenWorkout.getInstance().updateWorkoutSession(workoutSession);
+        OpenWorkout.getInstance().getCompletionRollover().finishWorkoutSession(workoutSession);
 
         WorkoutSlideFragmentDirections.ActionNavWorkoutSlideFragmentToTrophyFragment action = WorkoutSlideFragmentDirections.actionNavWorkoutSlideFragmentToTrophyFragment();
         action.setSessionWorkoutId(workoutSession.getWorkoutSessionId());
+        // the rollover might reset the progress before the trophy is shown, so the elapsed time is passed along
+        action.setElapsedSessionTime(workoutSession.getElapsedSessionTime());
         Navigation.findNavController(getActivity(), R.id.nav_host_fragment).navigate(action);
     }
 
@@ -31,8 +31,9 @@ import androidx.annotation.NonNull;
 
 import com.health.openworkout.R;
 import com.health.openworkout.core.OpenWorkout;
-import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutItemSummary;
 import com.health.openworkout.gui.datatypes.GenericAdapter;
+import com.health.openworkout.gui.datatypes.GenericPagedAdapter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,12 +41,12 @@ import java.util.List;
 
 import timber.log.Timber;
 
-public class WorkoutsAdapter extends GenericAdapter<WorkoutsAdapter.ViewHolder> {
-    private final List<WorkoutItem> workoutItemList;
+public class WorkoutsAdapter extends GenericPagedAdapter<WorkoutItemSummary, WorkoutsAdapter.ViewHolder> {
+    private final List<WorkoutItemSummary> workoutItemList;
     private Context context;
 
-    public WorkoutsAdapter(Context aContext, List<WorkoutItem> workoutItemList) {
-        super(aContext);
+    public WorkoutsAdapter(Context aContext, List<WorkoutItemSummary> workoutItemList) {
+        super(aContext, workoutItemList);
         this.context = aContext;
         this.workoutItemList = workoutItemList;
     }
@@ -62,7 +63,7 @@ public class WorkoutsAdapter extends GenericAdapter<WorkoutsAdapter.ViewHolder>
     @Override
     public void onBindViewHolder(@NonNull final ViewHolder holder, int position) {
         super.onBindViewHolder(holder, position);
-        WorkoutItem workoutItem = workoutItemList.get(position);
+        WorkoutItemSummary workoutItem = workoutItemList.get(position);
         holder.nameView.setText(workoutItem.getName());
 
         if (workoutItem.isFinished()) {
@@ -119,11 +120,6 @@ public class WorkoutsAdapter extends GenericAdapter<WorkoutsAdapter.ViewHolder>
         return workoutItemList.get(position).getWorkoutItemId();
     }
 
-    @Override
-    public int getItemCount() {
-        return workoutItemList.size();
-    }
-
     static class ViewHolder extends GenericAdapter.ViewHolder {
         TextView prepView;
         ImageView imgView;
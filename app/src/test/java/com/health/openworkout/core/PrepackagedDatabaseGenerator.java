@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package com.health.openworkout.core;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Builds the prepackaged databases with the default training plans, one per translation, the app opens the one of its
+ * language from assets/database on its first launch. Runs on the host and only when requested by the
+ * generatePrepackagedDatabase Gradle task, which passes the asset directory and the languages.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PrepackagedDatabaseGenerator {
+    @Test
+    public void generate() throws Exception {
+        assumeTrue(Boolean.getBoolean("generatePrepackagedDatabase"));
+
+        File assetDir = new File(System.getProperty("prepackagedDatabaseDir"));
+        String[] languageList = System.getProperty("prepackagedDatabaseLanguages").split(",");
+        Locale defaultLocale = Locale.getDefault();
+        // Room refuses queries on the main thread, which is the test thread here
+        ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+        try {
+            for (String language : languageList) {
+                // the default training plans take their names from the resources, the database name from the locale
+                RuntimeEnvironment.setQualifiers(language);
+                Locale.setDefault(new Locale(language));
+
+                generateDatabase(ApplicationProvider.<Context>getApplicationContext(), assetDir, databaseExecutor);
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+            databaseExecutor.shutdown();
+        }
+    }
+
+    private void generateDatabase(Context context, File assetDir, ExecutorService databaseExecutor) throws Exception {
+        final String prepackagedDatabaseName = OpenWorkout.getPrepackagedDatabaseName();
+        context.deleteDatabase(prepackagedDatabaseName);
+
+        final OpenWorkout openWorkout = new OpenWorkout(context, prepackagedDatabaseName, false, null);
+
+        databaseExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                openWorkout.initTrainingPlans();
+                // closing checkpoints the write-ahead log into the database file
+                openWorkout.closeDB();
+            }
+        }).get();
+
+        if (!assetDir.isDirectory() && !assetDir.mkdirs()) {
+            throw new IOException("Can't create " + assetDir);
+        }
+
+        Files.copy(context.getDatabasePath(prepackagedDatabaseName).toPath(), new File(assetDir, prepackagedDatabaseName).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+}
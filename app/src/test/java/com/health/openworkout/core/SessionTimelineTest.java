@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020 olie.xdev <olie.xdev@googlemail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package com.health.openworkout.core;
+
+import com.health.openworkout.core.datatypes.WorkoutItem;
+import com.health.openworkout.core.datatypes.WorkoutSession;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SessionTimelineTest {
+    private static SessionTimeline createTimeline(boolean... finished) {
+        List<WorkoutItem> workoutItemList = new ArrayList<>();
+
+        for (boolean itemFinished : finished) {
+            WorkoutItem workoutItem = new WorkoutItem();
+            workoutItem.setFinished(itemFinished);
+            workoutItemList.add(workoutItem);
+        }
+
+        WorkoutSession workoutSession = new WorkoutSession();
+        workoutSession.setWorkoutItems(workoutItemList);
+
+        return new SessionTimeline(workoutSession);
+    }
+
+    @Test(timeout = 1000)
+    public void nextUnfinishedItemOfFinishedItemWithFinishedFirstItem() {
+        SessionTimeline sessionTimeline = createTimeline(true, true, false, false);
+
+        assertEquals(2, sessionTimeline.getNextUnfinishedItem(1));
+        assertEquals(2, sessionTimeline.getNextUnfinishedItem(0));
+    }
+
+    @Test(timeout = 1000)
+    public void nextUnfinishedItemOfFinishedItemMovesForward() {
+        SessionTimeline sessionTimeline = createTimeline(false, true, false);
+
+        assertEquals(2, sessionTimeline.getNextUnfinishedItem(1));
+        assertEquals(0, sessionTimeline.getNextUnfinishedItem(0));
+    }
+
+    @Test(timeout = 1000)
+    public void nextUnfinishedItemWrapsAround() {
+        SessionTimeline sessionTimeline = createTimeline(false, false, true, true);
+
+        assertEquals(0, sessionTimeline.getNextUnfinishedItem(2));
+        assertEquals(0, sessionTimeline.getNextUnfinishedItem(3));
+    }
+
+    @Test(timeout = 1000)
+    public void nextUnfinishedItemAfterFinishItem() {
+        SessionTimeline sessionTimeline = createTimeline(true, false, false, true);
+
+        sessionTimeline.finishItem(1);
+        assertEquals(2, sessionTimeline.getNextUnfinishedItem(0));
+        assertEquals(2, sessionTimeline.getNextUnfinishedItem(1));
+
+        sessionTimeline.finishItem(2);
+        assertEquals(-1, sessionTimeline.getNextUnfinishedItem(0));
+    }
+}